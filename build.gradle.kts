@@ -18,9 +18,24 @@ repositories {
     mavenCentral()
 }
 
+// JMH benchmarks live in their own source set so they stay out of the published jar
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+// Unit tests also cover the benchmark input generators
+sourceSets.test {
+    compileClasspath += jmh.output
+    runtimeClasspath += jmh.output
+}
+
 dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 // Detect platform string for Maven classifier
@@ -58,6 +73,7 @@ val libraryName = "libfsst.$libraryExtension"
 val fsstBuildDir = file("fsst/build")
 val fsstStaticLib = fsstBuildDir.resolve("libfsst.a")
 val fsstSharedLib = fsstBuildDir.resolve(libraryName)
+val fsstShimSource = file("src/main/native/fsst4j.cpp")
 
 tasks.register<Exec>("configureFsst") {
     group = "build"
@@ -98,14 +114,17 @@ tasks.register<Exec>("buildFsstShared") {
     dependsOn("buildFsstStatic")
     workingDir = fsstBuildDir
     
+    // Exported wrappers for functions that fsst.h only provides inline
+    val shimFlags = listOf("-O3", "-fPIC", "-I", file("fsst").absolutePath, fsstShimSource.absolutePath)
     val linkerFlags = when {
-        isMac -> listOf("-shared", "-o", fsstSharedLib.absolutePath, "-Wl,-all_load", fsstStaticLib.absolutePath, "-std=c++17")
-        else -> listOf("-shared", "-o", fsstSharedLib.absolutePath, "-Wl,--whole-archive", fsstStaticLib.absolutePath, "-Wl,--no-whole-archive", "-std=c++17")
+        isMac -> listOf("-shared", "-o", fsstSharedLib.absolutePath) + shimFlags + listOf("-Wl,-all_load", fsstStaticLib.absolutePath, "-std=c++17")
+        else -> listOf("-shared", "-o", fsstSharedLib.absolutePath) + shimFlags + listOf("-Wl,--whole-archive", fsstStaticLib.absolutePath, "-Wl,--no-whole-archive", "-std=c++17")
     }
     commandLine("c++", *linkerFlags.toTypedArray())
     
     outputs.file(fsstSharedLib)
     inputs.file(fsstStaticLib)
+    inputs.file(fsstShimSource)
 }
 
 tasks.register<Copy>("copyNativeLibrary") {
@@ -147,6 +166,162 @@ tasks.compileTestJava {
     options.release.set(22)
 }
 
+tasks.named<JavaCompile>("compileJmhJava") {
+    options.release.set(22)
+}
+
+// Common setup for tasks that run JMH; the library is embedded in the resources like in the published JAR
+fun JavaExec.runsJmh() {
+    group = "verification"
+    dependsOn("embedNativeLibrary")
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    // Forked benchmark JVMs inherit these arguments
+    jvmArgs("--enable-native-access=ALL-UNNAMED", "-Djava.library.path=${file("build/lib").absolutePath}")
+}
+
+// Extra JMH options from -PjmhArgs="..."
+val jmhArgs = (project.findProperty("jmhArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+
+// Run with e.g. ./gradlew jmh -PjmhArgs="DbtextBenchmark -p file=urls -bm avgt -tu ns"
+tasks.register<JavaExec>("jmh") {
+    runsJmh()
+    description = "Run JMH benchmarks"
+    args(jmhArgs)
+}
+
+tasks.register<JavaExec>("jmhAllocation") {
+    runsJmh()
+    description = "Report bytes allocated per operation with the JMH GC profiler"
+    args(listOf("AllocationBenchmark", "-prof", "gc") + jmhArgs)
+}
+
+// Run with e.g. ./gradlew jmhScaling -PmaxThreads=64
+tasks.register<JavaExec>("jmhScaling") {
+    runsJmh()
+    description = "Report encode/decode throughput and efficiency from 1 to N threads"
+    mainClass.set("nl.bartlouwers.fsst.ScalingReport")
+    (project.findProperty("maxThreads") as String?)?.let { args(it) }
+}
+
+// Benchmarks checked by jmhGate; the pattern is matched against the full benchmark name. Throughput is compared
+// relative to referenceCopy, measured in the same run, so a baseline carries over between similar machines
+val jmhGateReference = "referenceCopy"
+val jmhGateBenchmarks = "AllocationBenchmark\\.($jmhGateReference|fsstEncode|fsstDecode|encoderCompress|encoderCompressInto|" +
+    "decoderDecode|decoderDecodeInto|columnGetInto|columnGetAllInto)$"
+val jmhBaseline = file("src/jmh/baseline.json")
+
+// Run before a release with ./gradlew jmhGate, or ./gradlew jmhGate -PupdateBaseline to record a new baseline
+tasks.register<JavaExec>("jmhGate") {
+    runsJmh()
+    description = "Run a fixed benchmark subset and fail on regressions against src/jmh/baseline.json"
+    mustRunAfter(tasks.test)
+    
+    val results = layout.buildDirectory.file("reports/jmh/gate.json").get().asFile
+    val updateBaseline = project.hasProperty("updateBaseline")
+    // Allowed drop in throughput, and allowed growth in allocation on top of a fixed slack of 16 bytes/op
+    val tolerance = (project.findProperty("gateTolerance") as String?)?.toDouble() ?: 0.10
+    // Baselines are kept per corpus; the benchmark fails rather than falling back if dbtext goes missing
+    val corpus = if (file("fsst/paper/dbtext").isDirectory) "dbtext" else "synthetic"
+    args(
+        jmhGateBenchmarks, "-p", "size=1024,65536", "-p", "corpus=$corpus",
+        "-bm", "thrpt", "-tu", "s", "-wi", "3", "-i", "5", "-f", "1",
+        "-prof", "gc", "-rf", "json", "-rff", results.absolutePath
+    )
+    inputs.file(jmhBaseline)
+    outputs.file(results)
+    outputs.upToDateWhen { false }
+    
+    doLast {
+        @Suppress("UNCHECKED_CAST")
+        val runs = groovy.json.JsonSlurper().parse(results) as List<Map<String, Any?>>
+        // Key each run by benchmark class, method and parameters, e.g.
+        // "AllocationBenchmark.fsstEncode corpus=dbtext size=1024"
+        val keyed = runs.associate { run ->
+            @Suppress("UNCHECKED_CAST")
+            val params = (run["params"] as Map<String, Any?>?).orEmpty().toSortedMap()
+            val name = (run["benchmark"] as String).split('.').takeLast(2).joinToString(".")
+            val key = (listOf(name) + params.map { "${it.key}=${it.value}" }).joinToString(" ")
+            key to run
+        }
+        val referenceOf = { key: String -> key.replaceBefore(' ', "AllocationBenchmark.$jmhGateReference") }
+        val opsOf = { run: Map<String, Any?> ->
+            @Suppress("UNCHECKED_CAST")
+            ((run["primaryMetric"] as Map<String, Any?>)["score"] as Number).toDouble()
+        }
+        val measured = keyed.filterKeys { it != referenceOf(it) }.mapValues { (key, run) ->
+            val reference = keyed[referenceOf(key)]
+                ?: throw GradleException("$key: reference benchmark $jmhGateReference was not measured")
+            @Suppress("UNCHECKED_CAST")
+            val secondary = run["secondaryMetrics"] as Map<String, Map<String, Any?>>
+            mapOf(
+                "opsPerSecond" to opsOf(run),
+                "relativeThroughput" to opsOf(run) / opsOf(reference),
+                "allocBytesPerOp" to (secondary["gc.alloc.rate.norm"]?.get("score") as Number?)?.toDouble()
+            )
+        }
+        
+        @Suppress("UNCHECKED_CAST")
+        val recorded = (groovy.json.JsonSlurper().parse(jmhBaseline) as Map<String, Any?>)["benchmarks"]
+            as Map<String, Map<String, Number>>
+        val ofCorpus = { key: String -> "corpus=$corpus" in key.split(' ') }
+        
+        if (updateBaseline) {
+            // Replace the entries of this run's corpus and keep those of the other one
+            val benchmarks = recorded.filterKeys { !ofCorpus(it) } +
+                measured.mapValues { (_, metrics) -> metrics.filterValues { it != null } }
+            val baseline = mapOf(
+                "description" to "Benchmark baseline for jmhGate, recorded with -PupdateBaseline",
+                "benchmarks" to benchmarks.toSortedMap()
+            )
+            jmhBaseline.writeText(groovy.json.JsonOutput.prettyPrint(groovy.json.JsonOutput.toJson(baseline)) + "\n")
+            logger.lifecycle("Wrote ${measured.size} $corpus benchmarks to $jmhBaseline")
+            return@doLast
+        }
+        
+        // Only recorded metrics are gated; allocation is deterministic and can be recorded anywhere, while
+        // throughput has to be recorded on the release machine, so a missing entry is reported, not failed
+        val expected = recorded.filterKeys(ofCorpus)
+        val failures = mutableListOf<String>()
+        val missing = mutableListOf<String>()
+        measured.keys.filter { it !in expected }.forEach { missing.add("$it: no baseline") }
+        expected.forEach { (key, metrics) ->
+            val actual = measured[key]
+            if (actual == null) {
+                failures.add("$key: not measured")
+                return@forEach
+            }
+            val baseline = metrics["relativeThroughput"]?.toDouble()
+            val relative = actual["relativeThroughput"]!!
+            if (baseline == null) {
+                missing.add(String.format("%s: throughput not recorded, measured %.4f x %s",
+                    key, relative, jmhGateReference))
+            } else if (relative < baseline * (1 - tolerance)) {
+                failures.add(String.format("%s: %.4f x %s (%.0f ops/s), baseline %.4f x",
+                    key, relative, jmhGateReference, actual["opsPerSecond"], baseline))
+            }
+            metrics["allocBytesPerOp"]?.toDouble()?.let { allocBaseline ->
+                val bytes = actual["allocBytesPerOp"]
+                if (bytes == null) {
+                    failures.add("$key: allocation not measured")
+                } else if (bytes > allocBaseline * (1 + tolerance) + 16) {
+                    failures.add(String.format("%s: %.0f B/op, baseline %.0f B/op", key, bytes, allocBaseline))
+                }
+            }
+        }
+        if (missing.isNotEmpty()) {
+            logger.warn("Not gated, missing from $jmhBaseline ($corpus corpus):\n" + missing.joinToString("\n") +
+                "\nRecord them on the release machine with ./gradlew jmhGate -PupdateBaseline")
+        }
+        if (failures.isNotEmpty()) {
+            throw GradleException("Benchmark regressions against $jmhBaseline ($corpus corpus):\n" +
+                failures.joinToString("\n") +
+                "\nIf a change is intended, run ./gradlew jmhGate -PupdateBaseline")
+        }
+        logger.lifecycle("No regressions in ${expected.size} $corpus benchmarks")
+    }
+}
+
 tasks.register<Copy>("embedNativeLibrary") {
     group = "build"
     description = "Copy native library to resources for JAR embedding"
@@ -168,6 +343,10 @@ tasks.named("compileTestJava") {
     mustRunAfter("embedNativeLibrary")
 }
 
+tasks.named("compileJmhJava") {
+    mustRunAfter("embedNativeLibrary")
+}
+
 tasks.named<Jar>("jar") {
     dependsOn("embedNativeLibrary")
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
@@ -0,0 +1,173 @@
+package nl.bartlouwers.fsst;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One benchmark per API entry point, meant to be run with the GC profiler
+ * ({@code ./gradlew jmhAllocation}), which reports heap bytes allocated per operation as
+ * {@code gc.alloc.rate.norm}.
+ * <p>
+ * The {@code *Into} and segment variants write into buffers owned by the caller and should report
+ * (close to) zero bytes per operation; the others allocate their results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+    
+    /** Length of each row for the batch and column benchmarks. */
+    private static final int ROW_LENGTH = 32;
+    
+    @Param({"16", "1024", "65536", "1048576"})
+    public int size;
+    
+    /**
+     * Corpus source, see {@link Corpus#documents(String)}. {@code jmhGate} passes {@code dbtext}
+     * or {@code synthetic} explicitly, so results from the two are never compared.
+     */
+    @Param({Corpus.AUTO})
+    public String corpus;
+    
+    private final Fsst fsst = new FsstImpl();
+    
+    private byte[] data;
+    private byte[][] rows;
+    private SymbolTable encoded;
+    
+    private FsstEncoder encoder;
+    private FsstDecoder decoder;
+    private byte[] compressed;
+    private byte[] compressOut;
+    private byte[] decodeOut;
+    
+    private Arena arena;
+    private MemorySegment nativeData;
+    private MemorySegment nativeCompressed;
+    private MemorySegment nativeCompressOut;
+    private MemorySegment nativeDecodeOut;
+    
+    private CompressedStringColumn column;
+    private byte[] columnOut;
+    
+    @Setup
+    public void setUp() {
+        data = Corpus.sample(size, corpus);
+        rows = new byte[Math.max(1, size / ROW_LENGTH)][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = Arrays.copyOfRange(data, i * ROW_LENGTH, Math.min(data.length, (i + 1) * ROW_LENGTH));
+        }
+        encoded = fsst.encode(data);
+        
+        encoder = FsstEncoder.train(data);
+        decoder = encoder.decoder();
+        compressed = encoder.compress(data);
+        compressOut = new byte[(int) FsstEncoder.maxCompressedLength(data.length)];
+        decodeOut = new byte[data.length + 8];
+        
+        arena = Arena.ofConfined();
+        nativeData = arena.allocate(data.length);
+        MemorySegment.copy(data, 0, nativeData, ValueLayout.JAVA_BYTE, 0, data.length);
+        nativeCompressed = arena.allocate(compressed.length);
+        MemorySegment.copy(compressed, 0, nativeCompressed, ValueLayout.JAVA_BYTE, 0, compressed.length);
+        nativeCompressOut = arena.allocate(compressOut.length);
+        nativeDecodeOut = arena.allocate(decodeOut.length);
+        
+        column = CompressedStringColumn.encode(encoder, rows);
+        columnOut = new byte[data.length];
+    }
+    
+    @TearDown
+    public void tearDown() {
+        encoder.close();
+        arena.close();
+    }
+    
+    /**
+     * Plain copy of the input, which {@code jmhGate} measures alongside the others so throughput
+     * can be compared relative to the speed of the machine running it.
+     */
+    @Benchmark
+    public byte[] referenceCopy() {
+        System.arraycopy(data, 0, decodeOut, 0, data.length);
+        return decodeOut;
+    }
+    
+    @Benchmark
+    public SymbolTable fsstEncode() {
+        return fsst.encode(data);
+    }
+    
+    @Benchmark
+    public byte[] fsstDecode() {
+        return fsst.decode(encoded);
+    }
+    
+    @Benchmark
+    public BatchSymbolTable fsstEncodeAll() {
+        return fsst.encodeAll(rows);
+    }
+    
+    @Benchmark
+    public byte[] encoderCompress() {
+        return encoder.compress(data);
+    }
+    
+    @Benchmark
+    public int encoderCompressInto() {
+        return encoder.compress(data, 0, data.length, compressOut, 0);
+    }
+    
+    @Benchmark
+    public long encoderCompressSegment() {
+        return encoder.compress(nativeData, nativeCompressOut);
+    }
+    
+    @Benchmark
+    public byte[] decoderDecode() {
+        return decoder.decode(compressed, data.length);
+    }
+    
+    @Benchmark
+    public int decoderDecodeInto() {
+        return decoder.decode(compressed, 0, compressed.length, decodeOut, 0);
+    }
+    
+    @Benchmark
+    public long decoderDecodeSegment() {
+        return decoder.decode(nativeCompressed, nativeDecodeOut);
+    }
+    
+    @Benchmark
+    public byte[] columnGet() {
+        return column.get(column.size() / 2);
+    }
+    
+    @Benchmark
+    public int columnGetInto() {
+        return column.get(column.size() / 2, columnOut, 0);
+    }
+    
+    @Benchmark
+    public int columnGetAllInto() {
+        return column.getAll(columnOut, 0);
+    }
+}
@@ -0,0 +1,23 @@
+package nl.bartlouwers.fsst;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts uncompressed bytes processed, which JMH reports as a rate next to the operation rate
+ * (bytes/s in throughput mode).
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ByteCounter {
+    
+    public long bytes;
+    
+    @Setup(Level.Iteration)
+    public void reset() {
+        bytes = 0;
+    }
+}
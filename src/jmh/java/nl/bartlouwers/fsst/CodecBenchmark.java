@@ -0,0 +1,59 @@
+package nl.bartlouwers.fsst;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the {@link Fsst} API: {@code encode} and both {@code decode} overloads.
+ * Subclasses choose the input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class CodecBenchmark {
+    
+    private final Fsst fsst = new FsstImpl();
+    private byte[] data;
+    private SymbolTable encoded;
+    
+    /**
+     * The uncompressed input to benchmark with.
+     */
+    abstract byte[] input();
+    
+    @Setup
+    public void setUp() {
+        data = input();
+        encoded = fsst.encode(data);
+    }
+    
+    @Benchmark
+    public SymbolTable encode(ByteCounter counter) {
+        counter.bytes += data.length;
+        return fsst.encode(data);
+    }
+    
+    @Benchmark
+    public byte[] decode(ByteCounter counter) {
+        counter.bytes += data.length;
+        return fsst.decode(encoded);
+    }
+    
+    @Benchmark
+    public byte[] decodeWithLength(ByteCounter counter) {
+        counter.bytes += data.length;
+        return fsst.decode(encoded.symbols(), encoded.symbolLengths(), encoded.compressedData(), encoded.decompressedLength());
+    }
+}
@@ -0,0 +1,74 @@
+package nl.bartlouwers.fsst;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to first encode in a fresh JVM. Every measurement is a single call in a new fork, so the
+ * library is loaded and bound from scratch each time.
+ * <p>
+ * Each benchmark runs the startup up to and including one more phase, so the cost of a phase is
+ * the difference with the previous benchmark:
+ * <ol>
+ *   <li>{@code lookup} - finding the embedded library among the JAR resources</li>
+ *   <li>{@code extract} - plus copying it to a temporary directory</li>
+ *   <li>{@code load} - plus {@code System.load}</li>
+ *   <li>{@code bind} - plus creating the downcall handles in {@link FsstFfm}</li>
+ *   <li>{@code firstEncode} - plus the first {@link Fsst#encode(byte[])}</li>
+ * </ol>
+ * The {@code jmh} tasks embed the library in the main resources like the published JAR does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class ColdStartBenchmark {
+    
+    private final String libraryName = System.mapLibraryName("fsst");
+    private byte[] data;
+    
+    @Setup
+    public void setUp() {
+        data = "https://example.com/index.html?page=1".repeat(8).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public String lookup() {
+        return NativeLibrary.resourcePath(libraryName);
+    }
+    
+    @Benchmark
+    public Path extract() {
+        String resourcePath = NativeLibrary.resourcePath(libraryName);
+        return resourcePath == null ? null : NativeLibrary.extract(resourcePath, libraryName);
+    }
+    
+    @Benchmark
+    public void load() {
+        NativeLibrary.load();
+    }
+    
+    @Benchmark
+    public boolean bind() {
+        // Initializes FsstFfm, which loads the library and creates all downcall handles
+        return FsstFfm.hasNativeDecompress();
+    }
+    
+    @Benchmark
+    public SymbolTable firstEncode() {
+        return new FsstImpl().encode(data);
+    }
+}
@@ -0,0 +1,140 @@
+package nl.bartlouwers.fsst;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark inputs from the dbtext corpus of the fsst submodule. Where the submodule is not
+ * checked out, inputs that do not name a dbtext file fall back to {@link SyntheticCorpus}.
+ */
+final class Corpus {
+    
+    /** Corpus source: the dbtext files. */
+    static final String DBTEXT = "dbtext";
+    /** Corpus source: documents from {@link SyntheticCorpus}. */
+    static final String SYNTHETIC = "synthetic";
+    /** Corpus source: dbtext when it is checked out, synthetic otherwise. */
+    static final String AUTO = "auto";
+    
+    /** Lines per family in the synthetic fallback documents. */
+    private static final int SYNTHETIC_LINES = 20_000;
+    
+    private Corpus() {
+    }
+    
+    /**
+     * The dbtext directory, relative to the project or one level up, if it is checked out.
+     */
+    static Optional<Path> findDbtextDir() {
+        for (Path dir : List.of(Paths.get("fsst/paper/dbtext"), Paths.get("../fsst/paper/dbtext"))) {
+            if (Files.isDirectory(dir)) {
+                return Optional.of(dir);
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * The dbtext directory; fails if it is not checked out.
+     */
+    static Path dbtextDir() {
+        return findDbtextDir().orElseThrow(() -> new IllegalStateException(
+            "dbtext corpus not found; run 'git submodule update --init' to check out fsst/paper/dbtext"));
+    }
+    
+    /**
+     * Contents of one dbtext file.
+     */
+    static byte[] file(String name) {
+        try {
+            return Files.readAllBytes(dbtextDir().resolve(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read dbtext file " + name, e);
+        }
+    }
+    
+    /**
+     * All dbtext files by name, in name order, or one synthetic document per string family
+     * when the corpus is not checked out.
+     */
+    static Map<String, byte[]> documents() {
+        return documents(AUTO);
+    }
+    
+    /**
+     * The documents of a corpus source: {@link #DBTEXT} fails if the corpus is not checked out,
+     * {@link #SYNTHETIC} never reads it, and {@link #AUTO} falls back from one to the other.
+     */
+    static Map<String, byte[]> documents(String source) {
+        return switch (source) {
+            case DBTEXT -> dbtextDocuments(dbtextDir());
+            case SYNTHETIC -> syntheticDocuments();
+            case AUTO -> findDbtextDir().map(Corpus::dbtextDocuments).orElseGet(Corpus::syntheticDocuments);
+            default -> throw new IllegalArgumentException("Unknown corpus source " + source);
+        };
+    }
+    
+    private static Map<String, byte[]> dbtextDocuments(Path dir) {
+        Map<String, byte[]> documents = new LinkedHashMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                documents.put(file.getFileName().toString(), Files.readAllBytes(file));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read dbtext corpus", e);
+        }
+        return documents;
+    }
+    
+    private static Map<String, byte[]> syntheticDocuments() {
+        Map<String, byte[]> documents = new LinkedHashMap<>();
+        for (SyntheticCorpus.Family family : SyntheticCorpus.Family.values()) {
+            ByteArrayOutputStream lines = new ByteArrayOutputStream();
+            for (byte[] value : SyntheticCorpus.generate(family, SYNTHETIC_LINES)) {
+                lines.writeBytes(value);
+                lines.write('\n');
+            }
+            documents.put("synthetic-" + family.name().toLowerCase(Locale.ROOT), lines.toByteArray());
+        }
+        return documents;
+    }
+    
+    /**
+     * The first {@code size} bytes of all documents concatenated, repeated if the corpus is smaller.
+     */
+    static byte[] sample(int size) {
+        return sample(size, AUTO);
+    }
+    
+    /**
+     * Like {@link #sample(int)}, from the documents of the given corpus source.
+     */
+    static byte[] sample(int size, String source) {
+        ByteArrayOutputStream all = new ByteArrayOutputStream();
+        for (byte[] document : documents(source).values()) {
+            all.writeBytes(document);
+            if (all.size() >= size) {
+                break;
+            }
+        }
+        byte[] corpus = all.toByteArray();
+        if (corpus.length == 0) {
+            throw new IllegalStateException("Benchmark corpus is empty");
+        }
+        byte[] sample = new byte[size];
+        for (int offset = 0; offset < size; offset += corpus.length) {
+            System.arraycopy(corpus, 0, sample, offset, Math.min(corpus.length, size - offset));
+        }
+        return sample;
+    }
+}
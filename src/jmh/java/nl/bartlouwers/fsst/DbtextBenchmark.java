@@ -0,0 +1,24 @@
+package nl.bartlouwers.fsst;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link CodecBenchmark} over each file of the dbtext corpus, compressed as a whole.
+ */
+@State(Scope.Benchmark)
+public class DbtextBenchmark extends CodecBenchmark {
+    
+    @Param({
+        "c_name", "chinese", "city", "credentials", "email", "faust", "firstname", "genome", "hex",
+        "japanese", "l_comment", "location", "movies", "ps_comment", "street", "urls", "urls2", "uuid",
+        "wiki", "wikipedia", "yago"
+    })
+    public String file;
+    
+    @Override
+    byte[] input() {
+        return Corpus.file(file);
+    }
+}
@@ -0,0 +1,82 @@
+package nl.bartlouwers.fsst;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The individual native phases of an encode, called through {@link FsstFfm} on input that is
+ * already in native memory, so no copies are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FfmPhaseBenchmark {
+    
+    @Param({"1024", "65536", "1048576"})
+    public int size;
+    
+    private Arena arena;
+    private MemorySegment input;
+    private MemorySegment output;
+    private MemorySegment encoder;
+    
+    @Setup
+    public void setUp() {
+        arena = Arena.ofShared();
+        byte[] data = Corpus.sample(size);
+        input = arena.allocate(data.length);
+        MemorySegment.copy(data, 0, input, ValueLayout.JAVA_BYTE, 0, data.length);
+        output = arena.allocate(FsstEncoder.maxCompressedLength(data.length));
+        encoder = FsstFfm.createEncoder(input, arena);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        FsstFfm.destroy(encoder);
+        arena.close();
+    }
+    
+    /**
+     * fsst_create; the encoder is destroyed again so memory stays flat, which is included.
+     */
+    @Benchmark
+    public void createAndDestroy() {
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            FsstFfm.destroy(FsstFfm.createEncoder(input, scratch));
+        }
+    }
+    
+    @Benchmark
+    public long compress() {
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            return FsstFfm.compress(encoder, input, output, scratch);
+        }
+    }
+    
+    /**
+     * fsst_decoder plus copying the symbol table to the heap.
+     */
+    @Benchmark
+    public byte[] getDecoder() {
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            return FsstFfm.getDecoder(encoder, scratch).symbols;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package nl.bartlouwers.fsst;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link CodecBenchmark} over samples of the dbtext corpus of increasing size.
+ */
+@State(Scope.Benchmark)
+public class InputSizeBenchmark extends CodecBenchmark {
+    
+    @Param({"1024", "65536", "1048576", "16777216"})
+    public int size;
+    
+    @Override
+    byte[] input() {
+        return Corpus.sample(size);
+    }
+}
@@ -0,0 +1,74 @@
+package nl.bartlouwers.fsst;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encode and decode over the whole dbtext corpus (or the synthetic fallback) from any number of threads. All threads share
+ * the corpus and the native bindings; each thread cycles through the files on its own.
+ * {@link ScalingReport} runs this for increasing thread counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ScalingBenchmark {
+    
+    /** Corpus source, see {@link Corpus#documents(String)}; {@link ScalingReport} passes it explicitly. */
+    @Param({Corpus.AUTO})
+    public String corpus;
+    
+    private final Fsst fsst = new FsstImpl();
+    private byte[][] files;
+    private SymbolTable[] encoded;
+    
+    @Setup
+    public void setUp() {
+        files = Corpus.documents(corpus).values().toArray(new byte[0][]);
+        encoded = new SymbolTable[files.length];
+        for (int i = 0; i < files.length; i++) {
+            encoded[i] = fsst.encode(files[i]);
+        }
+    }
+    
+    /**
+     * Per-thread position in the corpus.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        
+        int next;
+        
+        int advance(int count) {
+            int current = next;
+            next = (current + 1) % count;
+            return current;
+        }
+    }
+    
+    @Benchmark
+    public SymbolTable encode(Cursor cursor, ByteCounter counter) {
+        byte[] file = files[cursor.advance(files.length)];
+        counter.bytes += file.length;
+        return fsst.encode(file);
+    }
+    
+    @Benchmark
+    public byte[] decode(Cursor cursor, ByteCounter counter) {
+        SymbolTable file = encoded[cursor.advance(encoded.length)];
+        counter.bytes += file.decompressedLength();
+        return fsst.decode(file);
+    }
+}
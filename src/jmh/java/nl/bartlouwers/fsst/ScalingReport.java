@@ -0,0 +1,65 @@
+package nl.bartlouwers.fsst;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs {@link ScalingBenchmark} with 1, 2, 4, ... threads up to a maximum and reports aggregate
+ * throughput and per-thread efficiency, i.e. throughput relative to perfect linear scaling from
+ * the single-threaded run.
+ */
+public final class ScalingReport {
+    
+    private ScalingReport() {
+    }
+    
+    /**
+     * @param args Optional maximum thread count; defaults to the number of available processors
+     */
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = threadCounts(maxThreads);
+        // Resolve the corpus once, so every run uses the one named in the report
+        String corpus = Corpus.findDbtextDir().isPresent() ? Corpus.DBTEXT : Corpus.SYNTHETIC;
+        
+        List<String> lines = new ArrayList<>();
+        for (String benchmark : List.of("encode", "decode")) {
+            lines.add("");
+            lines.add(String.format("%-8s %8s %14s %18s %11s", benchmark, "Threads", "Total (MB/s)", "Per thread (MB/s)", "Efficiency"));
+            double single = 0;
+            for (int threads : threadCounts) {
+                Options options = new OptionsBuilder()
+                    .include(ScalingBenchmark.class.getName() + "." + benchmark + "$")
+                    .param("corpus", corpus)
+                    .threads(threads)
+                    .build();
+                RunResult result = new Runner(options).runSingle();
+                double megabytesPerSecond = result.getSecondaryResults().get("bytes").getScore() / 1e6;
+                if (threads == 1) {
+                    single = megabytesPerSecond;
+                }
+                double efficiency = megabytesPerSecond / (single * threads) * 100.0;
+                lines.add(String.format("%-8s %8d %14.1f %18.1f %10.1f%%",
+                    "", threads, megabytesPerSecond, megabytesPerSecond / threads, efficiency));
+            }
+        }
+        
+        System.out.println();
+        System.out.println("=== FSST Scaling Report for " + corpus + " Corpus ===");
+        lines.forEach(System.out::println);
+    }
+    
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> counts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            counts.add(threads);
+        }
+        counts.add(Math.max(1, maxThreads));
+        return counts;
+    }
+}
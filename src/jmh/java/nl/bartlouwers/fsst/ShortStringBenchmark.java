@@ -0,0 +1,103 @@
+package nl.bartlouwers.fsst;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batches of short strings from {@link SyntheticCorpus}: training plus batch compression, and
+ * per-string compression and decoding with a trained table. Needs no corpus files.
+ * Each operation processes the whole batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortStringBenchmark {
+    
+    @Param({"URLS", "EMAILS", "UUIDS", "JSON_KEYS", "LOG_LINES"})
+    public String family;
+    
+    @Param({"10000"})
+    public int count;
+    
+    /** Length distribution, a {@link SyntheticCorpus.LengthProfile} name. */
+    @Param({"NATURAL"})
+    public String lengths;
+    
+    private final Fsst fsst = new FsstImpl();
+    private byte[][] values;
+    private long totalBytes;
+    
+    private FsstEncoder encoder;
+    private byte[][] compressed;
+    private byte[] compressOut;
+    private byte[] decodeOut;
+    private CompressedStringColumn column;
+    
+    @Setup
+    public void setUp() {
+        values = SyntheticCorpus.generate(
+            SyntheticCorpus.Family.valueOf(family), count, SyntheticCorpus.LengthProfile.valueOf(lengths));
+        int maxLength = 0;
+        for (byte[] value : values) {
+            totalBytes += value.length;
+            maxLength = Math.max(maxLength, value.length);
+        }
+        encoder = FsstEncoder.train(values);
+        compressed = encoder.compressAll(values);
+        compressOut = new byte[(int) FsstEncoder.maxCompressedLength(maxLength)];
+        decodeOut = new byte[maxLength + 8];
+        column = CompressedStringColumn.encode(encoder, values);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        encoder.close();
+    }
+    
+    @Benchmark
+    public BatchSymbolTable encodeAll(ByteCounter counter) {
+        counter.bytes += totalBytes;
+        return fsst.encodeAll(values);
+    }
+    
+    @Benchmark
+    public int compressEach(ByteCounter counter) {
+        counter.bytes += totalBytes;
+        int total = 0;
+        for (byte[] value : values) {
+            total += encoder.compress(value, 0, value.length, compressOut, 0);
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public int decodeEach(ByteCounter counter) {
+        counter.bytes += totalBytes;
+        FsstDecoder decoder = encoder.decoder();
+        int total = 0;
+        for (byte[] value : compressed) {
+            total += decoder.decode(value, 0, value.length, decodeOut, 0);
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public DecodedStrings columnGetAll(ByteCounter counter) {
+        counter.bytes += totalBytes;
+        return column.getAll();
+    }
+}
@@ -0,0 +1,218 @@
+package nl.bartlouwers.fsst;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Deterministic generator of short-string benchmark inputs. The same family, count, lengths and
+ * seed always produce the same strings, on any JVM.
+ * <p>
+ * Values are drawn from small vocabularies with a skew towards the first entries, so that, as in
+ * real columns, some hosts, names and words are far more common than others.
+ */
+final class SyntheticCorpus {
+    
+    /** Seed used when none is given. */
+    static final long DEFAULT_SEED = 42;
+    
+    /**
+     * The kinds of strings that can be generated.
+     */
+    enum Family {
+        /** Short web URLs with paths and query strings. */
+        URLS,
+        /** Email addresses. */
+        EMAILS,
+        /** UUID-like ids with a type prefix. */
+        UUIDS,
+        /** Dotted JSON key paths. */
+        JSON_KEYS,
+        /** Application log lines. */
+        LOG_LINES
+    }
+    
+    /**
+     * Length distributions for generated strings, from the family's natural lengths to fixed
+     * ranges that strings are extended or cut to.
+     */
+    enum LengthProfile {
+        /** The family's natural lengths. */
+        NATURAL(0, Integer.MAX_VALUE),
+        /** 8 to 16 bytes, like codes and short keys. */
+        SHORT(8, 16),
+        /** 24 to 64 bytes, like typical URLs and emails. */
+        MEDIUM(24, 64),
+        /** 128 to 256 bytes, like log lines and descriptions. */
+        LONG(128, 256);
+        
+        final int minLength;
+        final int maxLength;
+        
+        LengthProfile(int minLength, int maxLength) {
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+        }
+    }
+    
+    private static final String[] WORDS = {
+        "user", "order", "item", "product", "search", "account", "status", "cart", "session", "payment",
+        "invoice", "customer", "address", "shipping", "report", "image", "profile", "settings", "admin",
+        "event", "message", "request", "response", "timeout", "cache", "server", "client", "region",
+        "price", "currency", "discount", "category", "review", "rating", "video", "article", "comment",
+        "token", "device", "version", "metrics", "billing", "subscription", "inventory", "warehouse"
+    };
+    private static final String[] HOSTS = {
+        "www.example.com", "shop.example.com", "api.example.org", "cdn.example.net", "blog.example.io",
+        "m.example.com", "static.example.org", "news.example.co.uk", "docs.example.dev", "mail.example.com"
+    };
+    private static final String[] FIRST_NAMES = {
+        "james", "mary", "john", "patricia", "robert", "jennifer", "michael", "linda", "william",
+        "elizabeth", "david", "barbara", "maria", "wei", "fatima", "ahmed", "yuki", "olga", "lucas", "emma"
+    };
+    private static final String[] LAST_NAMES = {
+        "smith", "johnson", "williams", "brown", "jones", "garcia", "miller", "davis", "rodriguez",
+        "martinez", "wang", "kim", "nguyen", "muller", "rossi", "jansen", "kowalski", "silva", "tanaka"
+    };
+    private static final String[] MAIL_DOMAINS = {
+        "gmail.com", "example.com", "outlook.com", "yahoo.com", "company.org", "mail.example.net", "hotmail.com"
+    };
+    private static final String[] ID_PREFIXES = {"ord", "usr", "txn", "evt", "ses", "inv"};
+    private static final String[] LOG_LEVELS = {"INFO", "INFO", "INFO", "DEBUG", "WARN", "ERROR"};
+    private static final String[] LOGGERS = {
+        "c.e.api.OrderController", "c.e.service.PaymentService", "c.e.db.ConnectionPool",
+        "c.e.cache.RedisCache", "c.e.auth.TokenFilter", "c.e.jobs.InventorySync"
+    };
+    private static final String[] LOG_MESSAGES = {
+        "Processed request", "Cache miss for key", "Payment authorized", "Retrying connection",
+        "User logged in", "Slow query detected", "Order shipped", "Token expired"
+    };
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private SyntheticCorpus() {
+    }
+    
+    /**
+     * Generate strings of their natural length with the default seed.
+     */
+    static byte[][] generate(Family family, int count) {
+        return generate(family, count, 0, Integer.MAX_VALUE, DEFAULT_SEED);
+    }
+    
+    /**
+     * Generate strings with a length profile and the default seed.
+     */
+    static byte[][] generate(Family family, int count, LengthProfile lengths) {
+        return generate(family, count, lengths.minLength, lengths.maxLength, DEFAULT_SEED);
+    }
+    
+    /**
+     * Generate strings of one family. Strings shorter than {@code minLength} are extended in the
+     * family's style (more path segments, key parts, log fields, ...) and strings longer than
+     * {@code maxLength} are cut off.
+     * 
+     * @param family The kind of strings
+     * @param count Number of strings
+     * @param minLength Minimum length of each string in bytes
+     * @param maxLength Maximum length of each string in bytes
+     * @param seed Random seed
+     * @return The strings, UTF-8 (all ASCII)
+     */
+    static byte[][] generate(Family family, int count, int minLength, int maxLength, long seed) {
+        if (count < 0 || minLength < 0 || maxLength < minLength) {
+            throw new IllegalArgumentException("Invalid count or lengths");
+        }
+        Random random = new Random(seed);
+        byte[][] strings = new byte[count][];
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            value.setLength(0);
+            append(family, value, random, i);
+            while (value.length() < minLength) {
+                extend(family, value, random);
+            }
+            if (value.length() > maxLength) {
+                value.setLength(maxLength);
+            }
+            strings[i] = value.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+    
+    private static void append(Family family, StringBuilder value, Random random, int index) {
+        switch (family) {
+            case URLS -> {
+                value.append("https://").append(pick(HOSTS, random))
+                    .append('/').append(pick(WORDS, random))
+                    .append('/').append(pick(WORDS, random));
+                if (random.nextBoolean()) {
+                    value.append('/').append(random.nextInt(100_000));
+                }
+                if (random.nextInt(3) == 0) {
+                    value.append("?q=").append(pick(WORDS, random)).append("&page=").append(1 + random.nextInt(20));
+                }
+            }
+            case EMAILS -> {
+                value.append(pick(FIRST_NAMES, random));
+                switch (random.nextInt(3)) {
+                    case 0 -> value.append('.').append(pick(LAST_NAMES, random));
+                    case 1 -> value.append('_').append(pick(LAST_NAMES, random));
+                    default -> value.append(pick(LAST_NAMES, random).charAt(0)).append(random.nextInt(1000));
+                }
+                value.append('@').append(pick(MAIL_DOMAINS, random));
+            }
+            case UUIDS -> {
+                value.append(pick(ID_PREFIXES, random)).append('_');
+                hex(value, random, 8).append('-');
+                hex(value, random, 4).append("-4");
+                hex(value, random, 3).append('-').append(HEX[8 + random.nextInt(4)]);
+                hex(value, random, 3).append('-');
+                hex(value, random, 12);
+            }
+            case JSON_KEYS -> {
+                value.append(pick(WORDS, random));
+                for (int depth = random.nextInt(3); depth > 0; depth--) {
+                    value.append('.').append(pick(WORDS, random));
+                }
+                if (random.nextInt(4) == 0) {
+                    value.append('_').append(random.nextBoolean() ? "id" : "at");
+                }
+            }
+            case LOG_LINES -> {
+                // Timestamps advance with the line number, not the wall clock, to stay deterministic
+                long millis = 1_700_000_000_000L + index * 137L + random.nextInt(100);
+                value.append(Instant.ofEpochMilli(millis))
+                    .append(' ').append(pick(LOG_LEVELS, random))
+                    .append(" [worker-").append(random.nextInt(16)).append("] ")
+                    .append(pick(LOGGERS, random)).append(" - ")
+                    .append(pick(LOG_MESSAGES, random))
+                    .append(' ').append(pick(WORDS, random)).append('=').append(random.nextInt(100_000));
+            }
+        }
+    }
+    
+    private static void extend(Family family, StringBuilder value, Random random) {
+        switch (family) {
+            case URLS -> value.append(value.indexOf("?") < 0 ? "/" : "&").append(pick(WORDS, random));
+            case EMAILS -> value.insert(value.indexOf("@"), "." + pick(WORDS, random));
+            case UUIDS -> hex(value.append('-'), random, 4);
+            case JSON_KEYS -> value.append('.').append(pick(WORDS, random));
+            case LOG_LINES -> value.append(' ').append(pick(WORDS, random)).append('=').append(random.nextInt(1000));
+        }
+    }
+    
+    /**
+     * Pick an entry, favouring the first ones (roughly quadratic skew).
+     */
+    private static String pick(String[] values, Random random) {
+        double u = random.nextDouble();
+        return values[(int) (u * u * values.length)];
+    }
+    
+    private static StringBuilder hex(StringBuilder value, Random random, int digits) {
+        for (int i = 0; i < digits; i++) {
+            value.append(HEX[random.nextInt(16)]);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,36 @@
+package nl.bartlouwers.fsst;
+
+/**
+ * Represents the result of compressing a batch of strings with one shared symbol table.
+ * 
+ * @param symbols The symbol table shared by all compressed strings
+ * @param symbolLengths Array of lengths for each symbol in the symbol table
+ * @param compressedData The compressed data, one entry per input string
+ * @param decompressedLengths The length of each original string
+ */
+public record BatchSymbolTable(
+    byte[] symbols,
+    int[] symbolLengths,
+    byte[][] compressedData,
+    int[] decompressedLengths
+) {
+
+  /**
+   * Number of compressed strings in this batch.
+   * 
+   * @return The number of strings
+   */
+  public int size() {
+    return compressedData.length;
+  }
+
+  /**
+   * View a single string of the batch as a SymbolTable sharing this batch's symbols.
+   * 
+   * @param index Index of the string in the batch
+   * @return SymbolTable for the string at the given index
+   */
+  public SymbolTable get(int index) {
+    return new SymbolTable(symbols, symbolLengths, compressedData[index], decompressedLengths[index]);
+  }
+}
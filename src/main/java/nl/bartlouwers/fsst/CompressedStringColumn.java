@@ -0,0 +1,559 @@
+package nl.bartlouwers.fsst;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
+
+/**
+ * A column of strings compressed with one shared FSST symbol table.
+ * <p>
+ * All rows are stored back to back in a single compressed array, with an offsets array marking
+ * where each row starts. Individual rows can be decoded with {@link #get(int)} without touching
+ * any other row, so a whole column can stay compressed in memory.
+ * <p>
+ * A column is immutable and can be shared between threads.
+ */
+public final class CompressedStringColumn {
+    
+    private final FsstDecoder decoder;
+    private final byte[] data;
+    private final int[] offsets;
+    private final int[] decompressedOffsets;
+    
+    private CompressedStringColumn(FsstDecoder decoder, byte[] data, int[] offsets, int[] decompressedOffsets) {
+        this.decoder = decoder;
+        this.data = data;
+        this.offsets = offsets;
+        this.decompressedOffsets = decompressedOffsets;
+    }
+    
+    /**
+     * Compress strings into a column, training a symbol table over all of them.
+     * 
+     * @param values The strings to compress
+     * @return The compressed column
+     */
+    public static CompressedStringColumn encode(byte[][] values) {
+        if (values != null && values.length == 0) {
+            return new CompressedStringColumn(FsstDecoder.of(new byte[0], new int[0]), new byte[0], new int[1], new int[1]);
+        }
+        try (FsstEncoder encoder = FsstEncoder.train(values)) {
+            return encode(encoder, values);
+        }
+    }
+    
+    /**
+     * Compress strings into a column with an already trained encoder.
+     * 
+     * @param encoder The encoder to compress with
+     * @param values The strings to compress
+     * @return The compressed column
+     */
+    public static CompressedStringColumn encode(FsstEncoder encoder, byte[][] values) {
+        if (encoder == null || values == null) {
+            throw new IllegalArgumentException("Encoder and values cannot be null");
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                throw new IllegalArgumentException("Value " + i + " cannot be null");
+            }
+        }
+        int[] compressedLengths = new int[values.length];
+        byte[] data = encoder.compressContiguous(values, compressedLengths);
+        
+        int[] offsets = new int[values.length + 1];
+        int[] decompressedOffsets = new int[values.length + 1];
+        for (int i = 0; i < values.length; i++) {
+            offsets[i + 1] = Math.addExact(offsets[i], compressedLengths[i]);
+            decompressedOffsets[i + 1] = Math.addExact(decompressedOffsets[i], values[i].length);
+        }
+        return new CompressedStringColumn(encoder.decoder(), data, offsets, decompressedOffsets);
+    }
+    
+    /**
+     * Build a column from the strings of a batch, which already share one symbol table.
+     * 
+     * @param batch The compressed batch
+     * @return The compressed column
+     */
+    public static CompressedStringColumn of(BatchSymbolTable batch) {
+        int n = batch.size();
+        int[] offsets = new int[n + 1];
+        int[] decompressedOffsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] = Math.addExact(offsets[i], batch.compressedData()[i].length);
+            decompressedOffsets[i + 1] = Math.addExact(decompressedOffsets[i], batch.decompressedLengths()[i]);
+        }
+        byte[] data = new byte[offsets[n]];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(batch.compressedData()[i], 0, data, offsets[i], batch.compressedData()[i].length);
+        }
+        return new CompressedStringColumn(
+            FsstDecoder.of(batch.symbols(), batch.symbolLengths()), data, offsets, decompressedOffsets);
+    }
+    
+    /**
+     * Build a column from its stored parts, e.g. after reading them back from disk.
+     * 
+     * @param decoder Decoder for the column's symbol table
+     * @param data All compressed rows, back to back
+     * @param offsets Start of each row in {@code data}, plus the end of the last row
+     * @param decompressedOffsets Start of each row in the decompressed column, plus its total length
+     * @return The compressed column
+     */
+    public static CompressedStringColumn of(
+            FsstDecoder decoder, byte[] data, int[] offsets, int[] decompressedOffsets) {
+        if (decoder == null || data == null || offsets == null || decompressedOffsets == null) {
+            throw new IllegalArgumentException("Column parts cannot be null");
+        }
+        if (offsets.length == 0 || offsets.length != decompressedOffsets.length) {
+            throw new IllegalArgumentException("Offsets must have one entry per row plus one");
+        }
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != data.length || decompressedOffsets[0] != 0) {
+            throw new IllegalArgumentException("Offsets do not match the compressed data");
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1] || decompressedOffsets[i] < decompressedOffsets[i - 1]) {
+                throw new IllegalArgumentException("Offsets must be non-decreasing");
+            }
+        }
+        return new CompressedStringColumn(decoder, data, offsets, decompressedOffsets);
+    }
+    
+    /**
+     * Number of rows in the column.
+     * 
+     * @return The number of rows
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+    
+    /**
+     * Decompressed length of a row.
+     * 
+     * @param row Row index
+     * @return The length of the row's original string
+     */
+    public int length(int row) {
+        Objects.checkIndex(row, size());
+        return decompressedOffsets[row + 1] - decompressedOffsets[row];
+    }
+    
+    /**
+     * Decode a single row.
+     * 
+     * @param row Row index
+     * @return The row's original string
+     */
+    public byte[] get(int row) {
+        byte[] value = new byte[length(row)];
+        decodeRow(row, value, 0);
+        return value;
+    }
+    
+    /**
+     * Decode a single row into a caller-provided buffer. Exactly the row's bytes are written.
+     * 
+     * @param row Row index
+     * @param dst Destination buffer
+     * @param dstOffset Offset in the destination to write the first byte at
+     * @return Number of bytes written
+     */
+    public int get(int row, byte[] dst, int dstOffset) {
+        Objects.checkFromIndexSize(dstOffset, length(row), dst.length);
+        return decodeRow(row, dst, dstOffset);
+    }
+    
+    /**
+     * Decode a selection of rows, e.g. the rows that passed a filter, into one contiguous array.
+     * 
+     * @param rows Row indices to decode, in the order they should appear in the result
+     * @return The decoded rows, back to back, with their offsets
+     */
+    public DecodedStrings get(int[] rows) {
+        int[] dstOffsets = new int[rows.length + 1];
+        for (int i = 0; i < rows.length; i++) {
+            dstOffsets[i + 1] = Math.addExact(dstOffsets[i], length(rows[i]));
+        }
+        byte[] dst = new byte[dstOffsets[rows.length]];
+        decodeRows(rows, dst, dstOffsets);
+        return new DecodedStrings(dst, dstOffsets);
+    }
+    
+    /**
+     * Decode a selection of rows into a caller-provided buffer, back to back. Bytes of
+     * {@code dst} after the last row are not written.
+     * 
+     * @param rows Row indices to decode
+     * @param dst Destination buffer, large enough for all selected rows
+     * @param dstOffsets Receives the start of each row in {@code dst} plus the end of the last row;
+     *                   must have {@code rows.length + 1} entries
+     * @return Total number of bytes written
+     */
+    public int get(int[] rows, byte[] dst, int[] dstOffsets) {
+        if (dstOffsets.length != rows.length + 1) {
+            throw new IllegalArgumentException("dstOffsets must have rows.length + 1 entries");
+        }
+        dstOffsets[0] = 0;
+        for (int i = 0; i < rows.length; i++) {
+            dstOffsets[i + 1] = Math.addExact(dstOffsets[i], length(rows[i]));
+        }
+        Objects.checkFromIndexSize(0, dstOffsets[rows.length], dst.length);
+        decodeRows(rows, dst, dstOffsets);
+        return dstOffsets[rows.length];
+    }
+    
+    /**
+     * Decode the whole column into one contiguous array, e.g. for a full scan.
+     * <p>
+     * Rows never share a code, so the compressed rows are decoded together in a single decoder
+     * call, which goes native for large columns when the shim library is available.
+     * 
+     * @return All rows, back to back, with their offsets
+     */
+    public DecodedStrings getAll() {
+        byte[] dst = new byte[decompressedOffsets[size()]];
+        decodeAll(dst, 0);
+        return new DecodedStrings(dst, decompressedOffsets.clone());
+    }
+    
+    /**
+     * Decode the whole column into a caller-provided buffer. Row {@code i} starts at
+     * {@code dstOffset + decompressedOffsets()[i]}.
+     * 
+     * @param dst Destination buffer
+     * @param dstOffset Offset in the destination to write the first row at
+     * @return Number of bytes written
+     */
+    public int getAll(byte[] dst, int dstOffset) {
+        Objects.checkFromIndexSize(dstOffset, decompressedOffsets[size()], dst.length);
+        return decodeAll(dst, dstOffset);
+    }
+    
+    private int decodeAll(byte[] dst, int dstOffset) {
+        int expected = decompressedOffsets[size()];
+        int written = decoder.decode(data, 0, data.length, dst, dstOffset, dstOffset + expected);
+        if (written != expected) {
+            throw new IllegalStateException("Column decoded to " + written + " bytes, expected " + expected);
+        }
+        return written;
+    }
+    
+    /**
+     * Decode rows into their slots of {@code dst}, writing nothing outside each row's slot.
+     */
+    private void decodeRows(int[] rows, byte[] dst, int[] dstOffsets) {
+        for (int i = 0; i < rows.length; i++) {
+            int row = rows[i];
+            int start = offsets[row];
+            int written = decoder.decode(data, start, offsets[row + 1] - start, dst, dstOffsets[i], dstOffsets[i + 1]);
+            if (written != dstOffsets[i + 1] - dstOffsets[i]) {
+                throw new IllegalStateException("Row " + row + " decoded to " + written
+                    + " bytes, expected " + (dstOffsets[i + 1] - dstOffsets[i]));
+            }
+        }
+    }
+    
+    private int decodeRow(int row, byte[] dst, int dstOffset) {
+        int start = offsets[row];
+        return decoder.decode(data, start, offsets[row + 1] - start, dst, dstOffset,
+            dstOffset + decompressedOffsets[row + 1] - decompressedOffsets[row]);
+    }
+    
+    /**
+     * Find all rows equal to a value, for any column.
+     * <p>
+     * Only rows of the value's length are compared, symbol by symbol on their compressed bytes,
+     * and each is abandoned at the first differing byte. With an encoder for the column's symbol
+     * table, {@link #filterEquals(FsstEncoder, byte[])} compares compressed bytes directly instead.
+     * 
+     * @param value The value to search for
+     * @return Bitmap with a set bit for every matching row
+     */
+    public BitSet filterEquals(byte[] value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        BitSet matches = new BitSet(size());
+        int row = nextEquals(value, 0);
+        while (row >= 0) {
+            matches.set(row);
+            row = nextEquals(value, row + 1);
+        }
+        return matches;
+    }
+    
+    /**
+     * Find the first row equal to a value, for any column.
+     * 
+     * @param value The value to search for
+     * @return Index of the first matching row, or -1 if no row matches
+     * @see #filterEquals(byte[])
+     */
+    public int indexOfEquals(byte[] value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        return nextEquals(value, 0);
+    }
+    
+    /**
+     * Find all rows equal to a value without decoding any row.
+     * <p>
+     * FSST compression is deterministic for a given symbol table, so the value is compressed once
+     * and compared against each row's compressed bytes. The encoder must use the column's symbol
+     * table, e.g. the encoder the column was built with or a duplicate of it.
+     * 
+     * @param encoder Encoder with the column's symbol table
+     * @param value The value to search for
+     * @return Bitmap with a set bit for every matching row
+     */
+    public BitSet filterEquals(FsstEncoder encoder, byte[] value) {
+        byte[] needle = compressNeedle(encoder, value);
+        BitSet matches = new BitSet(size());
+        int row = nextEquals(needle, value.length, 0);
+        while (row >= 0) {
+            matches.set(row);
+            row = nextEquals(needle, value.length, row + 1);
+        }
+        return matches;
+    }
+    
+    /**
+     * Find the first row equal to a value without decoding any row.
+     * 
+     * @param encoder Encoder with the column's symbol table
+     * @param value The value to search for
+     * @return Index of the first matching row, or -1 if no row matches
+     * @see #filterEquals(FsstEncoder, byte[])
+     */
+    public int indexOfEquals(FsstEncoder encoder, byte[] value) {
+        return nextEquals(compressNeedle(encoder, value), value.length, 0);
+    }
+    
+    private byte[] compressNeedle(FsstEncoder encoder, byte[] value) {
+        if (encoder == null || value == null) {
+            throw new IllegalArgumentException("Encoder and value cannot be null");
+        }
+        if (!decoder.hasSameTable(encoder.decoder())) {
+            throw new IllegalArgumentException("Encoder does not use the column's symbol table");
+        }
+        return encoder.compress(value);
+    }
+    
+    private int nextEquals(byte[] value, int fromRow) {
+        for (int row = fromRow, n = size(); row < n; row++) {
+            int start = offsets[row];
+            if (decompressedOffsets[row + 1] - decompressedOffsets[row] == value.length
+                    && decoder.compare(data, start, offsets[row + 1] - start, value) == 0) {
+                return row;
+            }
+        }
+        return -1;
+    }
+    
+    private int nextEquals(byte[] needle, int decompressedLength, int fromRow) {
+        for (int row = fromRow, n = size(); row < n; row++) {
+            // Lengths are a cheap pre-filter; only rows of the same shape are compared byte-wise
+            int start = offsets[row];
+            int end = offsets[row + 1];
+            if (end - start == needle.length
+                    && decompressedOffsets[row + 1] - decompressedOffsets[row] == decompressedLength
+                    && Arrays.equals(data, start, end, needle, 0, needle.length)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Find all rows starting with a prefix, like {@code LIKE 'abc%'}.
+     * <p>
+     * Rows are matched symbol by symbol on their compressed bytes and each row is abandoned at
+     * the first mismatch, so rows are never fully decoded.
+     * 
+     * @param prefix The prefix to search for
+     * @return Bitmap with a set bit for every matching row
+     */
+    public BitSet filterStartsWith(byte[] prefix) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix cannot be null");
+        }
+        BitSet matches = new BitSet(size());
+        for (int row = 0, n = size(); row < n; row++) {
+            int start = offsets[row];
+            if (decompressedOffsets[row + 1] - decompressedOffsets[row] >= prefix.length
+                    && decoder.startsWith(data, start, offsets[row + 1] - start, prefix)) {
+                matches.set(row);
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Find all rows containing a substring, like {@code LIKE '%abc%'}.
+     * <p>
+     * Each row's symbols are streamed through a matcher as they are decoded, without
+     * materializing the row, and the row is done at the first occurrence.
+     * 
+     * @param needle The substring to search for
+     * @return Bitmap with a set bit for every matching row
+     */
+    public BitSet filterContains(byte[] needle) {
+        if (needle == null) {
+            throw new IllegalArgumentException("Needle cannot be null");
+        }
+        int[] failure = FsstDecoder.failureTable(needle);
+        BitSet matches = new BitSet(size());
+        for (int row = 0, n = size(); row < n; row++) {
+            int start = offsets[row];
+            if (decompressedOffsets[row + 1] - decompressedOffsets[row] >= needle.length
+                    && decoder.contains(data, start, offsets[row + 1] - start, needle, failure)) {
+                matches.set(row);
+            }
+        }
+        return matches;
+    }
+    
+    /**
+     * Group all rows by value, e.g. for a {@code GROUP BY} with counts.
+     * <p>
+     * Equal strings compress to equal bytes under one symbol table, so rows are hashed and
+     * compared on their compressed bytes. Only one row per distinct value is decoded, at the end.
+     * 
+     * @return The distinct values with their counts and each row's group
+     */
+    public StringGroups groupBy() {
+        return group(null);
+    }
+    
+    /**
+     * Group a selection of rows by value, e.g. the rows that passed a filter. Rows outside the
+     * selection get group -1.
+     * 
+     * @param rows The rows to group
+     * @return The distinct values with their counts and each row's group
+     * @see #groupBy()
+     */
+    public StringGroups groupBy(BitSet rows) {
+        if (rows == null) {
+            throw new IllegalArgumentException("Rows cannot be null");
+        }
+        return group(rows);
+    }
+    
+    private StringGroups group(BitSet selection) {
+        int n = size();
+        int[] groupIds = new int[n];
+        if (selection != null) {
+            Arrays.fill(groupIds, -1);
+        }
+        
+        // Open addressing over group ids + 1, so 0 marks an empty slot; kept at most half full
+        int[] slots = new int[16];
+        int[] firstRows = new int[8];
+        int[] hashes = new int[8];
+        int[] counts = new int[8];
+        int groups = 0;
+        
+        int row = selection == null ? 0 : selection.nextSetBit(0);
+        while (row >= 0 && row < n) {
+            int hash = hashRow(row);
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            int group;
+            while (true) {
+                int entry = slots[slot];
+                if (entry == 0) {
+                    group = groups++;
+                    if (group == firstRows.length) {
+                        firstRows = Arrays.copyOf(firstRows, group * 2);
+                        hashes = Arrays.copyOf(hashes, group * 2);
+                        counts = Arrays.copyOf(counts, group * 2);
+                    }
+                    firstRows[group] = row;
+                    hashes[group] = hash;
+                    slots[slot] = group + 1;
+                    if (groups * 2 > slots.length) {
+                        slots = rehash(hashes, groups, slots.length * 2);
+                    }
+                    break;
+                }
+                if (hashes[entry - 1] == hash && sameCompressedValue(firstRows[entry - 1], row)) {
+                    group = entry - 1;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            counts[group]++;
+            groupIds[row] = group;
+            row = selection == null ? row + 1 : selection.nextSetBit(row + 1);
+        }
+        
+        return new StringGroups(get(Arrays.copyOf(firstRows, groups)), Arrays.copyOf(counts, groups), groupIds);
+    }
+    
+    private static int[] rehash(int[] hashes, int groups, int capacity) {
+        int[] slots = new int[capacity];
+        int mask = capacity - 1;
+        for (int group = 0; group < groups; group++) {
+            int slot = hashes[group] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = group + 1;
+        }
+        return slots;
+    }
+    
+    private int hashRow(int row) {
+        int h = 1;
+        for (int i = offsets[row], end = offsets[row + 1]; i < end; i++) {
+            h = 31 * h + data[i];
+        }
+        // Spread the bits so that masking with the table size keeps the high bits relevant
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    private boolean sameCompressedValue(int a, int b) {
+        return Arrays.equals(data, offsets[a], offsets[a + 1], data, offsets[b], offsets[b + 1]);
+    }
+    
+    /**
+     * Decoder for the column's symbol table.
+     * 
+     * @return The decoder
+     */
+    public FsstDecoder decoder() {
+        return decoder;
+    }
+    
+    /**
+     * All compressed rows, back to back.
+     * 
+     * @return The compressed data
+     */
+    public byte[] data() {
+        return data;
+    }
+    
+    /**
+     * Start of each row in {@link #data()}, plus the end of the last row.
+     * 
+     * @return The compressed offsets
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+    
+    /**
+     * Start of each row in the decompressed column, plus the total decompressed length.
+     * 
+     * @return The decompressed offsets
+     */
+    public int[] decompressedOffsets() {
+        return decompressedOffsets;
+    }
+}
@@ -0,0 +1,44 @@
+package nl.bartlouwers.fsst;
+
+import java.util.Arrays;
+
+/**
+ * Several decoded strings stored back to back in one array.
+ * 
+ * @param data The decoded strings, concatenated
+ * @param offsets Start of each string in {@code data}, plus the end of the last string
+ */
+public record DecodedStrings(
+    byte[] data,
+    int[] offsets
+) {
+
+  /**
+   * Number of strings.
+   * 
+   * @return The number of strings
+   */
+  public int size() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * Length of a single string.
+   * 
+   * @param index Index of the string
+   * @return The length of the string in bytes
+   */
+  public int length(int index) {
+    return offsets[index + 1] - offsets[index];
+  }
+
+  /**
+   * Copy a single string out of the shared array.
+   * 
+   * @param index Index of the string
+   * @return The string's bytes
+   */
+  public byte[] get(int index) {
+    return Arrays.copyOfRange(data, offsets[index], offsets[index + 1]);
+  }
+}
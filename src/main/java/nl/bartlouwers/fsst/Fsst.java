@@ -13,6 +13,18 @@ public interface Fsst {
    */
   SymbolTable encode(byte[] data);
 
+  /**
+   * Encode a batch of strings using one symbol table trained over all of them.
+   * 
+   * @param data The input strings to compress
+   * @return BatchSymbolTable containing the shared symbol table and one compressed entry per string
+   */
+  default BatchSymbolTable encodeAll(byte[][] data) {
+    try (FsstEncoder encoder = FsstEncoder.train(data)) {
+      return encoder.encodeAll(data);
+    }
+  }
+
   /**
    * Decode compressed data using a SymbolTable.
    * 
@@ -22,7 +34,36 @@ public interface Fsst {
   byte[] decode(SymbolTable encoded);
 
   /**
-   * Decode compressed data using explicit parameters.
+   * Decode compressed data into a caller-provided buffer, so a reusable buffer can be used
+   * instead of allocating a new array per call.
+   * 
+   * @param encoded The SymbolTable containing compression information
+   * @param dst The destination buffer
+   * @param dstOffset Offset in the destination to write the first byte at
+   * @return The number of bytes written
+   */
+  default int decode(SymbolTable encoded, byte[] dst, int dstOffset) {
+    return FsstDecoder.of(encoded).decode(encoded, dst, dstOffset);
+  }
+
+  /**
+   * Decode all strings of a batch.
+   * 
+   * @param encoded The BatchSymbolTable containing compression information
+   * @return The decompressed strings, in input order
+   */
+  default byte[][] decodeAll(BatchSymbolTable encoded) {
+    FsstDecoder decoder = FsstDecoder.of(encoded.symbols(), encoded.symbolLengths());
+    byte[][] decoded = new byte[encoded.size()][];
+    for (int i = 0; i < decoded.length; i++) {
+      decoded[i] = decoder.decode(encoded.compressedData()[i], encoded.decompressedLengths()[i]);
+    }
+    return decoded;
+  }
+
+  /**
+   * Decode compressed data using explicit parameters. The decoder is set up from the table on
+   * every call; use {@link FsstDecoder} to decode many payloads with one table.
    * 
    * @param symbols The symbol table
    * @param symbolLengths Array of lengths for each symbol
@@ -0,0 +1,621 @@
+package nl.bartlouwers.fsst;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A reusable FSST decoder for one symbol table.
+ * <p>
+ * All per-table setup (packing each symbol into an 8-byte word) is done once when the decoder is
+ * created, so decoding many payloads that share a table has no per-call setup cost. Like the native
+ * decoder, symbols are written a whole word at a time and the output position advances by the
+ * symbol length.
+ * A decoder is immutable and can be shared between threads.
+ */
+public final class FsstDecoder {
+    
+    /** Number of codes that map to a symbol; code 255 is the escape code. */
+    static final int SYMBOL_COUNT = 255;
+    /** Escape code: the next byte of the compressed data is a literal. */
+    static final int ESCAPE = 255;
+    /** Maximum length of an FSST symbol in bytes. */
+    static final int MAX_SYMBOL_LENGTH = 8;
+    /** Compressed size from which decoding is done natively, where the native decoder is available. */
+    static final int NATIVE_DECODE_THRESHOLD = 1 << 20;
+    
+    // Unaligned little-endian 8-byte access into byte[], used to write a whole symbol at once
+    private static final VarHandle LONG_LE =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong SEGMENT_LONG_LE =
+        ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    
+    private final byte[] symbols;
+    private final int[] symbolLengths;
+    
+    // Per-code tables, always SYMBOL_COUNT entries so lookups need no bounds checks against the input table
+    private final int[] lengths = new int[SYMBOL_COUNT];
+    private final long[] words = new long[SYMBOL_COUNT];
+    
+    // Native fsst_decoder_t, created on first native decode and freed when the decoder is unreachable
+    private volatile MemorySegment nativeDecoder;
+    
+    private FsstDecoder(byte[] symbols, int[] symbolLengths) {
+        if (symbols == null || symbolLengths == null) {
+            throw new IllegalArgumentException("Symbol table cannot be null");
+        }
+        if (symbolLengths.length > SYMBOL_COUNT) {
+            throw new IllegalArgumentException(
+                "Symbol table has " + symbolLengths.length + " symbols, at most " + SYMBOL_COUNT + " allowed");
+        }
+        this.symbols = symbols;
+        this.symbolLengths = symbolLengths;
+        
+        int offset = 0;
+        for (int code = 0; code < symbolLengths.length; code++) {
+            int len = symbolLengths[code];
+            if (len < 0 || len > MAX_SYMBOL_LENGTH) {
+                throw new IllegalArgumentException("Invalid length " + len + " for symbol " + code);
+            }
+            if (offset + len > symbols.length) {
+                throw new IllegalArgumentException("Symbol table is shorter than the symbol lengths require");
+            }
+            lengths[code] = len;
+            // Pack the symbol into a little-endian word, matching fsst_decoder_t.symbol
+            long word = 0;
+            for (int j = 0; j < len; j++) {
+                word |= (symbols[offset + j] & 0xFFL) << (j * 8);
+            }
+            words[code] = word;
+            offset += len;
+        }
+    }
+    
+    /**
+     * Create a decoder for the symbol table of an encoding result.
+     * 
+     * @param table SymbolTable whose symbols should be used
+     * @return A decoder for the table
+     */
+    public static FsstDecoder of(SymbolTable table) {
+        return new FsstDecoder(table.symbols(), table.symbolLengths());
+    }
+    
+    /**
+     * Create a decoder from an explicit symbol table. The arrays are not copied and must not be
+     * modified afterwards.
+     * 
+     * @param symbols The symbol table
+     * @param symbolLengths Array of lengths for each symbol
+     * @return A decoder for the table
+     */
+    public static FsstDecoder of(byte[] symbols, int[] symbolLengths) {
+        return new FsstDecoder(symbols, symbolLengths);
+    }
+    
+    /**
+     * Create a decoder from a symbol table serialized with {@code fsst_export}.
+     * 
+     * @param exported Exported symbol table bytes, e.g. from {@link FsstEncoder#exportTable()}
+     * @return A decoder for the table
+     */
+    public static FsstDecoder importTable(byte[] exported) {
+        if (exported == null) {
+            throw new IllegalArgumentException("Exported table cannot be null");
+        }
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            FsstFfm.SymbolTableData symbolData = FsstFfm.import_(exported, scratch);
+            return new FsstDecoder(symbolData.symbols, symbolData.symbolLengths);
+        }
+    }
+    
+    /**
+     * Decode a payload compressed with this decoder's symbol table.
+     * 
+     * @param encoded SymbolTable whose compressed data should be decoded
+     * @return The decompressed data
+     */
+    public byte[] decode(SymbolTable encoded) {
+        return decode(encoded.compressedData(), encoded.decompressedLength());
+    }
+    
+    /**
+     * Decode a payload compressed with this decoder's symbol table.
+     * 
+     * @param compressedData The compressed data
+     * @param decompressedLength The expected length of decompressed data
+     * @return The decompressed data
+     */
+    public byte[] decode(byte[] compressedData, int decompressedLength) {
+        byte[] output = new byte[decompressedLength];
+        decode(compressedData, 0, compressedData.length, output, 0, decompressedLength);
+        return output;
+    }
+    
+    /**
+     * Decode a payload into a caller-provided buffer. Exactly the decompressed bytes are written.
+     * 
+     * @param encoded SymbolTable whose compressed data should be decoded
+     * @param output Destination buffer
+     * @param outputOffset Offset in the destination to write the first byte at
+     * @return Number of bytes written
+     * @throws IndexOutOfBoundsException if the output is too small
+     */
+    public int decode(SymbolTable encoded, byte[] output, int outputOffset) {
+        Objects.checkFromIndexSize(outputOffset, encoded.decompressedLength(), output.length);
+        byte[] compressedData = encoded.compressedData();
+        return decode(compressedData, 0, compressedData.length, output, outputOffset,
+            outputOffset + encoded.decompressedLength());
+    }
+    
+    /**
+     * Decode {@code length} bytes of compressed data starting at {@code offset} into a
+     * caller-provided buffer, e.g. a reusable scratch buffer. Bytes of {@code output} after the
+     * decoded data may be overwritten; pass an output limit to decode into part of a buffer.
+     * 
+     * @param compressedData Buffer holding the compressed data
+     * @param offset Offset of the compressed data
+     * @param length Length of the compressed data
+     * @param output Destination buffer
+     * @param outputOffset Offset in the destination to write the first byte at
+     * @return Number of bytes written
+     * @throws IndexOutOfBoundsException if the output is too small
+     */
+    public int decode(byte[] compressedData, int offset, int length, byte[] output, int outputOffset) {
+        return decode(compressedData, offset, length, output, outputOffset, output.length);
+    }
+    
+    /**
+     * Decode {@code length} bytes of compressed data starting at {@code offset} into
+     * {@code output}, never writing at or beyond {@code outputLimit}. Use this to decode several
+     * values into one buffer: only the bytes between {@code outputOffset} and
+     * {@code outputLimit} are written, though bytes after the decoded data in that range may be.
+     * 
+     * @param compressedData Buffer holding the compressed data
+     * @param offset Offset of the compressed data
+     * @param length Length of the compressed data
+     * @param output Destination buffer
+     * @param outputOffset Offset in the destination to write the first byte at
+     * @param outputLimit Offset in the destination to stop writing at
+     * @return Number of bytes written
+     * @throws IndexOutOfBoundsException if the decoded data does not fit before the limit
+     */
+    public int decode(byte[] compressedData, int offset, int length, byte[] output, int outputOffset, int outputLimit) {
+        Objects.checkFromIndexSize(offset, length, compressedData.length);
+        Objects.checkFromToIndex(outputOffset, outputLimit, output.length);
+        if (length >= NATIVE_DECODE_THRESHOLD && FsstFfm.hasNativeDecompress()) {
+            return decodeNative(compressedData, offset, length, output, outputOffset, outputLimit);
+        }
+        return decodeJava(compressedData, offset, length, output, outputOffset, outputLimit);
+    }
+    
+    /**
+     * Decode the contents of {@code input} into {@code output}. When the native decoder is
+     * available, the native library reads and writes native segments in place, and heap segments
+     * too for inputs small enough for a critical downcall. Bytes of {@code output} after the decoded
+     * data may be overwritten.
+     * 
+     * @param input The compressed data
+     * @param output Destination for the decompressed data
+     * @return Number of bytes written
+     * @throws IndexOutOfBoundsException if the output is too small
+     */
+    public long decode(MemorySegment input, MemorySegment output) {
+        if (output.isReadOnly()) {
+            throw new IllegalArgumentException("Output cannot be read-only");
+        }
+        if (input.isNative() && output.isNative() && FsstFfm.hasNativeDecompress()) {
+            return checkWritten(FsstFfm.decompress(nativeDecoder(), input, output), output.byteSize());
+        }
+        if (input.byteSize() <= FsstFfm.CRITICAL_MAX_BYTES && FsstFfm.hasCriticalCalls()) {
+            // Heap segments are accessed in place by a critical downcall
+            return checkWritten(FsstFfm.decompressCritical(nativeDecoder(), input, output), output.byteSize());
+        }
+        return decodeSegment(input, output);
+    }
+    
+    /**
+     * Decode the remaining bytes of {@code input} into {@code output}, advancing the position of
+     * both buffers. Direct buffers are read and written in place.
+     * 
+     * @param input The compressed data
+     * @param output Destination for the decompressed data
+     * @return Number of bytes written
+     * @throws IndexOutOfBoundsException if the output is too small
+     */
+    public int decode(ByteBuffer input, ByteBuffer output) {
+        int written = (int) decode(MemorySegment.ofBuffer(input), MemorySegment.ofBuffer(output));
+        input.position(input.limit());
+        output.position(output.position() + written);
+        return written;
+    }
+    
+    /**
+     * Decode only the first {@code maxBytes} bytes of a payload, e.g. for a preview. Decoding stops
+     * once enough bytes are produced, so the rest of the payload is never looked at.
+     * 
+     * @param compressedData The compressed data
+     * @param maxBytes Maximum number of bytes to decode
+     * @return The first {@code min(maxBytes, decompressed length)} bytes of the decompressed data
+     */
+    public byte[] decodePrefix(byte[] compressedData, int maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes cannot be negative");
+        }
+        // A payload never decodes to more than MAX_SYMBOL_LENGTH bytes per compressed byte
+        byte[] output = new byte[(int) Math.min(maxBytes, (long) compressedData.length * MAX_SYMBOL_LENGTH)];
+        int written = decodePrefix(compressedData, 0, compressedData.length, output, 0, output.length);
+        return written == output.length ? output : Arrays.copyOf(output, written);
+    }
+    
+    /**
+     * Decode only the first {@code maxBytes} bytes of a payload into a caller-provided buffer.
+     * Only the returned number of bytes is written; the rest of {@code output} is left untouched.
+     * 
+     * @param compressedData Buffer holding the compressed data
+     * @param offset Offset of the compressed data
+     * @param length Length of the compressed data
+     * @param output Destination buffer
+     * @param outputOffset Offset in the destination to write the first byte at
+     * @param maxBytes Maximum number of bytes to decode
+     * @return Number of bytes written, {@code min(maxBytes, decompressed length)}
+     */
+    public int decodePrefix(byte[] compressedData, int offset, int length, byte[] output, int outputOffset, int maxBytes) {
+        Objects.checkFromIndexSize(offset, length, compressedData.length);
+        Objects.checkFromIndexSize(outputOffset, maxBytes, output.length);
+        int outputLimit = outputOffset + maxBytes;
+        int idx = outputOffset;
+        int i = offset;
+        int end = offset + length;
+        
+        // A word store spills up to 7 bytes past its symbol. Take them only while the remaining
+        // input decodes to at least 8 more bytes (2 input bytes per output byte at worst), so later
+        // symbols or the limit always cover the spill
+        int wordLimit = outputLimit - MAX_SYMBOL_LENGTH;
+        int wordEnd = end - 2 * MAX_SYMBOL_LENGTH;
+        while (i < wordEnd && idx <= wordLimit) {
+            int code = compressedData[i++] & 0xFF;
+            if (code == ESCAPE) {
+                output[idx++] = compressedData[i++];
+            } else {
+                LONG_LE.set(output, idx, words[code]);
+                idx += lengths[code];
+            }
+        }
+        
+        // Tail: byte by byte, cutting the last symbol off at the limit
+        while (i < end && idx < outputLimit) {
+            int code = compressedData[i++] & 0xFF;
+            if (code == ESCAPE) {
+                output[idx++] = compressedData[i++];
+            } else {
+                long word = words[code];
+                for (int len = Math.min(lengths[code], outputLimit - idx); len > 0; len--) {
+                    output[idx++] = (byte) word;
+                    word >>>= 8;
+                }
+            }
+        }
+        return idx - outputOffset;
+    }
+    
+    /**
+     * Compare a payload's decompressed data with {@code other}, lexicographically as unsigned
+     * bytes like {@link Arrays#compareUnsigned(byte[], byte[])}. Decoding stops at the first
+     * differing byte, so sorting and range predicates rarely need to expand a whole value.
+     * 
+     * @param compressedData The compressed data
+     * @param other The bytes to compare with
+     * @return Negative, zero or positive if the decompressed data is less than, equal to or greater than {@code other}
+     */
+    public int compare(byte[] compressedData, byte[] other) {
+        return compare(compressedData, 0, compressedData.length, other);
+    }
+    
+    /**
+     * Compare {@code length} bytes of compressed data starting at {@code offset}, once decompressed,
+     * with {@code other}.
+     * 
+     * @param compressedData Buffer holding the compressed data
+     * @param offset Offset of the compressed data
+     * @param length Length of the compressed data
+     * @param other The bytes to compare with
+     * @return Negative, zero or positive if the decompressed data is less than, equal to or greater than {@code other}
+     * @see #compare(byte[], byte[])
+     */
+    public int compare(byte[] compressedData, int offset, int length, byte[] other) {
+        Objects.checkFromIndexSize(offset, length, compressedData.length);
+        int pos = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            int code = compressedData[i++] & 0xFF;
+            long word;
+            int len;
+            if (code == ESCAPE) {
+                word = compressedData[i++] & 0xFFL;
+                len = 1;
+            } else {
+                word = words[code];
+                len = lengths[code];
+            }
+            int n = Math.min(len, other.length - pos);
+            if (n > 0) {
+                // Compare the overlapping symbol bytes at once; the lowest differing byte comes first
+                long mask = n == MAX_SYMBOL_LENGTH ? -1L : (1L << (n << 3)) - 1;
+                long otherWord = pos + MAX_SYMBOL_LENGTH <= other.length
+                    ? (long) LONG_LE.get(other, pos)
+                    : tailWord(other, pos);
+                long diff = (word ^ otherWord) & mask;
+                if (diff != 0) {
+                    int shift = Long.numberOfTrailingZeros(diff) & ~7;
+                    return Integer.compare((int) (word >>> shift) & 0xFF, (int) (otherWord >>> shift) & 0xFF);
+                }
+            }
+            if (n < len) {
+                // other is a proper prefix of the decompressed data
+                return 1;
+            }
+            pos += len;
+        }
+        return pos == other.length ? 0 : -1;
+    }
+    
+    /**
+     * Little-endian word of the last bytes of {@code data} from {@code pos}, zero-padded.
+     */
+    private static long tailWord(byte[] data, int pos) {
+        long word = 0;
+        for (int k = 0; pos + k < data.length; k++) {
+            word |= (data[pos + k] & 0xFFL) << (k << 3);
+        }
+        return word;
+    }
+    
+    /**
+     * Java decode loop over memory segments, the segment counterpart of the byte[] loop.
+     */
+    private long decodeSegment(MemorySegment input, MemorySegment output) {
+        long idx = 0;
+        long i = 0;
+        long end = input.byteSize();
+        
+        long wordLimit = output.byteSize() - MAX_SYMBOL_LENGTH;
+        while (i < end && idx <= wordLimit) {
+            int code = input.get(ValueLayout.JAVA_BYTE, i++) & 0xFF;
+            if (code == ESCAPE) {
+                output.set(ValueLayout.JAVA_BYTE, idx++, input.get(ValueLayout.JAVA_BYTE, i++));
+            } else {
+                output.set(SEGMENT_LONG_LE, idx, words[code]);
+                idx += lengths[code];
+            }
+        }
+        
+        while (i < end) {
+            int code = input.get(ValueLayout.JAVA_BYTE, i++) & 0xFF;
+            if (code == ESCAPE) {
+                output.set(ValueLayout.JAVA_BYTE, idx++, input.get(ValueLayout.JAVA_BYTE, i++));
+            } else {
+                long word = words[code];
+                for (int len = lengths[code]; len > 0; len--) {
+                    output.set(ValueLayout.JAVA_BYTE, idx++, (byte) word);
+                    word >>>= 8;
+                }
+            }
+        }
+        return idx;
+    }
+    
+    /**
+     * Decode a payload with the native decoder, copying it in and out of native memory.
+     */
+    private int decodeNative(
+            byte[] compressedData, int offset, int length, byte[] output, int outputOffset, int outputLimit) {
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            MemorySegment input = scratch.allocate(Math.max(1, length)).asSlice(0, length);
+            MemorySegment.copy(compressedData, offset, input, ValueLayout.JAVA_BYTE, 0, length);
+            // Size the scratch output by what the payload can decode to, not by the caller's buffer
+            int capacity = (int) Math.min(outputLimit - outputOffset, (long) length * MAX_SYMBOL_LENGTH);
+            MemorySegment decoded = scratch.allocate(Math.max(1, capacity)).asSlice(0, capacity);
+            long written = checkWritten(FsstFfm.decompress(nativeDecoder(), input, decoded), capacity);
+            MemorySegment.copy(decoded, ValueLayout.JAVA_BYTE, 0, output, outputOffset, (int) written);
+            return (int) written;
+        }
+    }
+    
+    /**
+     * The native decoder returns the full decompressed size, which exceeds the output size when
+     * the output was too small and the result was truncated.
+     */
+    private static long checkWritten(long written, long capacity) {
+        if (written > capacity) {
+            throw new IndexOutOfBoundsException(
+                "Decompressed data (" + written + " bytes) exceeds output size " + capacity);
+        }
+        return written;
+    }
+    
+    private MemorySegment nativeDecoder() {
+        MemorySegment decoder = nativeDecoder;
+        if (decoder == null) {
+            // Racing threads may each build one; they are identical and unused copies are reclaimed by GC
+            decoder = FsstFfm.createDecoder(words, lengths, Arena.ofAuto());
+            nativeDecoder = decoder;
+        }
+        return decoder;
+    }
+    
+    /**
+     * Java decode loop: decode {@code length} bytes of compressed data starting at {@code offset}
+     * into {@code output}, never writing at or beyond {@code outputLimit}.
+     * @return Number of bytes written
+     */
+    int decodeJava(
+            byte[] compressedData, int offset, int length, byte[] output, int outputOffset, int outputLimit) {
+        int idx = outputOffset;
+        int i = offset;
+        int end = offset + length;
+        
+        // Fast path: while a full word fits in the output, write all 8 bytes of the symbol and
+        // advance by its length; the excess bytes are overwritten by the next symbol
+        int wordLimit = outputLimit - MAX_SYMBOL_LENGTH;
+        while (i < end && idx <= wordLimit) {
+            int code = compressedData[i++] & 0xFF;
+            // 255 is our escape byte -> take the next symbol as it is
+            if (code == ESCAPE) {
+                output[idx++] = compressedData[i++];
+            } else {
+                LONG_LE.set(output, idx, words[code]);
+                idx += lengths[code];
+            }
+        }
+        
+        // Tail: write byte by byte so nothing is written past the output limit
+        while (i < end) {
+            int code = compressedData[i++] & 0xFF;
+            int len = code == ESCAPE ? 1 : lengths[code];
+            if (idx + len > outputLimit) {
+                throw new IndexOutOfBoundsException(
+                    "Decompressed data exceeds output size " + (outputLimit - outputOffset));
+            }
+            if (code == ESCAPE) {
+                output[idx++] = compressedData[i++];
+            } else {
+                long word = words[code];
+                for (; len > 0; len--) {
+                    output[idx++] = (byte) word;
+                    word >>>= 8;
+                }
+            }
+        }
+        return idx - outputOffset;
+    }
+    
+    /**
+     * Whether a compressed payload decodes to data starting with {@code prefix}. Works symbol by
+     * symbol and stops at the first mismatch, so only the leading codes are looked at.
+     */
+    boolean startsWith(byte[] compressedData, int offset, int length, byte[] prefix) {
+        int matched = 0;
+        int i = offset;
+        int end = offset + length;
+        while (matched < prefix.length) {
+            if (i >= end) {
+                return false;
+            }
+            int code = compressedData[i++] & 0xFF;
+            if (code == ESCAPE) {
+                if (i >= end || compressedData[i++] != prefix[matched++]) {
+                    return false;
+                }
+                continue;
+            }
+            long word = words[code];
+            int len = lengths[code];
+            if (matched + MAX_SYMBOL_LENGTH <= prefix.length) {
+                // Compare the whole symbol against the next prefix bytes in one go
+                long mask = len == MAX_SYMBOL_LENGTH ? -1L : (1L << (len << 3)) - 1;
+                if (((long) LONG_LE.get(prefix, matched) & mask) != word) {
+                    return false;
+                }
+                matched += len;
+            } else {
+                int n = Math.min(len, prefix.length - matched);
+                for (int k = 0; k < n; k++, word >>>= 8) {
+                    if ((byte) word != prefix[matched++]) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Whether a compressed payload decodes to data containing {@code needle}. The symbols are fed
+     * through a Knuth-Morris-Pratt matcher as they are decoded, without materializing the data,
+     * and the scan stops at the first occurrence.
+     * 
+     * @param failure Failure table of the needle, from {@link #failureTable(byte[])}
+     */
+    boolean contains(byte[] compressedData, int offset, int length, byte[] needle, int[] failure) {
+        if (needle.length == 0) {
+            return true;
+        }
+        int state = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end) {
+            int code = compressedData[i++] & 0xFF;
+            long word;
+            int len;
+            if (code == ESCAPE) {
+                if (i >= end) {
+                    return false;
+                }
+                word = compressedData[i++] & 0xFFL;
+                len = 1;
+            } else {
+                word = words[code];
+                len = lengths[code];
+            }
+            for (; len > 0; len--, word >>>= 8) {
+                byte b = (byte) word;
+                while (state > 0 && needle[state] != b) {
+                    state = failure[state - 1];
+                }
+                if (needle[state] == b && ++state == needle.length) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Knuth-Morris-Pratt failure table: entry {@code i} is the length of the longest proper prefix
+     * of {@code needle[0..i]} that is also a suffix of it.
+     */
+    static int[] failureTable(byte[] needle) {
+        int[] failure = new int[needle.length];
+        for (int i = 1, k = 0; i < needle.length; i++) {
+            while (k > 0 && needle[i] != needle[k]) {
+                k = failure[k - 1];
+            }
+            if (needle[i] == needle[k]) {
+                k++;
+            }
+            failure[i] = k;
+        }
+        return failure;
+    }
+    
+    boolean hasSameTable(FsstDecoder other) {
+        return this == other
+            || (Arrays.equals(symbols, other.symbols) && Arrays.equals(symbolLengths, other.symbolLengths));
+    }
+    
+    /**
+     * The symbols of this decoder's symbol table.
+     * 
+     * @return The symbol table bytes
+     */
+    public byte[] symbols() {
+        return symbols;
+    }
+    
+    /**
+     * The length of each symbol of this decoder's symbol table.
+     * 
+     * @return Array of lengths for each symbol
+     */
+    public int[] symbolLengths() {
+        return symbolLengths;
+    }
+}
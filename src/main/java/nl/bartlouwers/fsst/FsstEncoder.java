@@ -0,0 +1,363 @@
+package nl.bartlouwers.fsst;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A trained FSST encoder backed by a native {@code fsst_encoder_t}.
+ * <p>
+ * The symbol table is trained once when the encoder is created and is then reused for every
+ * subsequent call, so compressing does not pay the training cost. The native encoder is freed
+ * when the encoder is closed.
+ * <p>
+ * An encoder is not thread-safe. Use {@link #duplicate()} to obtain an encoder with the same
+ * symbol table for each thread that compresses concurrently.
+ */
+public final class FsstEncoder implements AutoCloseable {
+    
+    private final Arena arena;
+    private final MemorySegment encoder;
+    private final byte[] symbols;
+    private final int[] symbolLengths;
+    private final FsstDecoder decoder;
+    private boolean closed;
+    
+    private FsstEncoder(Arena arena, MemorySegment encoder, byte[] symbols, int[] symbolLengths) {
+        this(arena, encoder, FsstDecoder.of(symbols, symbolLengths));
+    }
+    
+    private FsstEncoder(Arena arena, MemorySegment encoder, FsstDecoder decoder) {
+        this.arena = arena;
+        this.encoder = encoder;
+        this.symbols = decoder.symbols();
+        this.symbolLengths = decoder.symbolLengths();
+        this.decoder = decoder;
+    }
+    
+    /**
+     * Train an encoder on a single sample.
+     * 
+     * @param sample Sample data to train the symbol table on
+     * @return A trained encoder, which must be closed
+     */
+    public static FsstEncoder train(byte[] sample) {
+        if (sample == null) {
+            throw new IllegalArgumentException("Sample cannot be null");
+        }
+        return train(new byte[][]{sample});
+    }
+    
+    /**
+     * Train an encoder on a set of sample strings.
+     * 
+     * @param samples Sample strings to train the symbol table on
+     * @return A trained encoder, which must be closed
+     */
+    public static FsstEncoder train(byte[][] samples) {
+        checkStrings(samples);
+        return train(scratch -> FsstFfm.createEncoder(samples, scratch));
+    }
+    
+    /**
+     * Train an encoder on a sample held in a memory segment. Native segments, such as mapped
+     * files, are read in place.
+     * 
+     * @param sample Sample data to train the symbol table on
+     * @return A trained encoder, which must be closed
+     */
+    public static FsstEncoder train(MemorySegment sample) {
+        if (sample == null) {
+            throw new IllegalArgumentException("Sample cannot be null");
+        }
+        return train(scratch -> FsstFfm.createEncoder(FsstFfm.toNative(sample, scratch), scratch));
+    }
+    
+    private static FsstEncoder train(Function<ScratchArena, MemorySegment> createEncoder) {
+        Arena arena = Arena.ofShared();
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            MemorySegment trained = createEncoder.apply(scratch);
+            // Keep the encoder pointer in memory owned by this encoder rather than the scratch arena
+            MemorySegment encoder = arena.allocate(trained.byteSize()).copyFrom(trained);
+            try {
+                FsstFfm.SymbolTableData symbolData = FsstFfm.getDecoder(encoder, scratch);
+                return new FsstEncoder(arena, encoder, symbolData.symbols, symbolData.symbolLengths);
+            } catch (RuntimeException e) {
+                FsstFfm.destroy(encoder);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Upper bound on the compressed size of an input, which is the output space the native
+     * compressor requires.
+     * 
+     * @param inputLength Length of the input in bytes
+     * @return Maximum compressed length in bytes
+     */
+    public static long maxCompressedLength(long inputLength) {
+        return 7 + 2 * inputLength;
+    }
+    
+    /**
+     * Create an encoder that shares this encoder's symbol table, e.g. for use on another thread.
+     * 
+     * @return A new encoder, which must be closed independently of this one
+     */
+    public FsstEncoder duplicate() {
+        ensureOpen();
+        Arena newArena = Arena.ofShared();
+        try {
+            MemorySegment copy = FsstFfm.duplicate(encoder, newArena);
+            return new FsstEncoder(newArena, copy, decoder);
+        } catch (RuntimeException e) {
+            newArena.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Compress data with the trained symbol table.
+     * 
+     * @param data Input data to compress
+     * @return The compressed data
+     */
+    public byte[] compress(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Input data cannot be null");
+        }
+        ensureOpen();
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            if (data.length <= FsstFfm.CRITICAL_MAX_BYTES && FsstFfm.hasCriticalCalls()) {
+                // Read the heap array in place and compress into reusable scratch memory, so the
+                // exactly sized result is the only allocation
+                MemorySegment output = scratch.allocate(maxCompressedLength(data.length));
+                long compressedLength = FsstFfm.compressCritical(encoder, MemorySegment.ofArray(data), output);
+                return output.asSlice(0, compressedLength).toArray(ValueLayout.JAVA_BYTE);
+            }
+            return FsstFfm.compress(encoder, data, scratch);
+        }
+    }
+    
+    /**
+     * Compress a batch of strings with the trained symbol table in a single native call.
+     * 
+     * @param data Input strings to compress
+     * @return The compressed data, one entry per input string
+     */
+    public byte[][] compressAll(byte[][] data) {
+        checkStrings(data);
+        ensureOpen();
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            return FsstFfm.compress(encoder, data, scratch);
+        }
+    }
+    
+    /**
+     * Compress {@code length} bytes of {@code input} starting at {@code offset} directly into a
+     * caller-provided buffer, e.g. a page buffer being appended to.
+     * 
+     * @param input Buffer holding the data to compress
+     * @param offset Offset of the data
+     * @param length Length of the data
+     * @param output Destination buffer
+     * @param outputOffset Offset in the destination to write the first byte at; at least
+     *                     {@link #maxCompressedLength} bytes must be available from there
+     * @return The compressed length in bytes
+     * @throws IllegalArgumentException if the output is too small
+     */
+    public int compress(byte[] input, int offset, int length, byte[] output, int outputOffset) {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Input and output cannot be null");
+        }
+        Objects.checkFromIndexSize(offset, length, input.length);
+        Objects.checkIndex(outputOffset, output.length + 1);
+        return (int) compress(
+            MemorySegment.ofArray(input).asSlice(offset, length),
+            MemorySegment.ofArray(output).asSlice(outputOffset));
+    }
+    
+    /**
+     * Compress the contents of {@code input} into {@code output}. Native segments are read and
+     * written in place. Heap segments are also accessed in place when the native library supports
+     * critical downcalls and the input is small enough, and copied through native memory otherwise.
+     * 
+     * @param input Data to compress
+     * @param output Destination for the compressed data, at least {@link #maxCompressedLength} bytes
+     * @return The compressed length in bytes
+     * @throws IllegalArgumentException if the output is too small or read-only
+     */
+    public long compress(MemorySegment input, MemorySegment output) {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Input and output cannot be null");
+        }
+        if (output.isReadOnly()) {
+            throw new IllegalArgumentException("Output cannot be read-only");
+        }
+        ensureOpen();
+        if (input.byteSize() <= FsstFfm.CRITICAL_MAX_BYTES && FsstFfm.hasCriticalCalls()) {
+            // Heap or native, the segments are passed to the native library as they are
+            long compressedLength = FsstFfm.compressCritical(encoder, input, output);
+            if (compressedLength < 0) {
+                throw outputTooSmall(input, output);
+            }
+            return compressedLength;
+        }
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            MemorySegment in = FsstFfm.toNative(input, scratch);
+            MemorySegment out = output.isNative()
+                ? output
+                : scratch.allocate(Math.max(1, Math.min(output.byteSize(), maxCompressedLength(input.byteSize()))));
+            long compressedLength = FsstFfm.compress(encoder, in, out, scratch);
+            if (compressedLength < 0) {
+                throw outputTooSmall(input, output);
+            }
+            if (out != output) {
+                MemorySegment.copy(out, 0, output, 0, compressedLength);
+            }
+            return compressedLength;
+        }
+    }
+    
+    /**
+     * Compress the remaining bytes of {@code input} into {@code output}, advancing the position of
+     * both buffers. Direct buffers are read and written in place.
+     * 
+     * @param input Data to compress
+     * @param output Destination for the compressed data
+     * @return The compressed length in bytes
+     * @throws IllegalArgumentException if the output is too small or read-only
+     */
+    public int compress(ByteBuffer input, ByteBuffer output) {
+        if (input == null || output == null) {
+            throw new IllegalArgumentException("Input and output cannot be null");
+        }
+        int compressedLength = (int) compress(MemorySegment.ofBuffer(input), MemorySegment.ofBuffer(output));
+        input.position(input.limit());
+        output.position(output.position() + compressedLength);
+        return compressedLength;
+    }
+    
+    /**
+     * Compress a batch of strings into one array holding the compressed strings back to back.
+     * @param compressedLengths Receives the compressed length of each string
+     * @return All compressed strings, concatenated
+     */
+    byte[] compressContiguous(byte[][] data, int[] compressedLengths) {
+        checkStrings(data);
+        ensureOpen();
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            return FsstFfm.compressContiguous(encoder, data, compressedLengths, scratch);
+        }
+    }
+    
+    /**
+     * Compress data and return it together with this encoder's symbol table.
+     * 
+     * @param data Input data to compress
+     * @return SymbolTable containing the compressed data and symbol table
+     */
+    public SymbolTable encode(byte[] data) {
+        return new SymbolTable(symbols, symbolLengths, compress(data), data.length);
+    }
+    
+    /**
+     * Compress a batch of strings and return them together with this encoder's symbol table.
+     * 
+     * @param data Input strings to compress
+     * @return BatchSymbolTable containing the compressed strings and symbol table
+     */
+    public BatchSymbolTable encodeAll(byte[][] data) {
+        byte[][] compressedData = compressAll(data);
+        int[] decompressedLengths = new int[data.length];
+        for (int i = 0; i < data.length; i++) {
+            decompressedLengths[i] = data[i].length;
+        }
+        return new BatchSymbolTable(symbols, symbolLengths, compressedData, decompressedLengths);
+    }
+    
+    /**
+     * Export the symbol table in the serialized format of {@code fsst_export}.
+     * 
+     * @return The exported symbol table bytes
+     */
+    public byte[] exportTable() {
+        ensureOpen();
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            return FsstFfm.export(encoder, scratch);
+        }
+    }
+    
+    /**
+     * A decoder for the trained symbol table. Duplicated encoders share the same decoder.
+     * 
+     * @return The decoder for this encoder's symbol table
+     */
+    public FsstDecoder decoder() {
+        return decoder;
+    }
+    
+    /**
+     * The symbols of the trained symbol table.
+     * 
+     * @return The symbol table bytes
+     */
+    public byte[] symbols() {
+        return symbols;
+    }
+    
+    /**
+     * The length of each symbol of the trained symbol table.
+     * 
+     * @return Array of lengths for each symbol
+     */
+    public int[] symbolLengths() {
+        return symbolLengths;
+    }
+    
+    /**
+     * Free the native encoder. Further compression calls fail with {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            FsstFfm.destroy(encoder);
+        } finally {
+            arena.close();
+        }
+    }
+    
+    private static IllegalArgumentException outputTooSmall(MemorySegment input, MemorySegment output) {
+        return new IllegalArgumentException(
+            "Output too small: " + output.byteSize() + " bytes, need up to "
+                + maxCompressedLength(input.byteSize()));
+    }
+    
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Encoder is closed");
+        }
+    }
+    
+    private static void checkStrings(byte[][] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Input data cannot be null");
+        }
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == null) {
+                throw new IllegalArgumentException("Input string " + i + " cannot be null");
+            }
+        }
+    }
+}
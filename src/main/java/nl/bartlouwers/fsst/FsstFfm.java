@@ -3,8 +3,6 @@ package nl.bartlouwers.fsst;
 import java.lang.foreign.*;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.VarHandle;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 
 /**
  * Foreign Function & Memory API bindings for the fsst C library.
@@ -14,104 +12,10 @@ class FsstFfm {
     private static final SymbolLookup LOOKUP;
     
     static {
-        // Load the native library
-        String libraryName = System.mapLibraryName("fsst");
-        Path libraryPath = findLibrary(libraryName);
-        if (libraryPath != null) {
-            System.load(libraryPath.toAbsolutePath().toString());
-        } else {
-            // Try to load from system library path
-            try {
-                System.loadLibrary("fsst");
-            } catch (UnsatisfiedLinkError e) {
-                throw new RuntimeException("Failed to load fsst library: " + e.getMessage(), e);
-            }
-        }
+        NativeLibrary.load();
         LOOKUP = SymbolLookup.loaderLookup();
     }
     
-    private static Path findLibrary(String libraryName) {
-        // First, try to extract from JAR resources (for Maven distribution)
-        Path extractedLib = extractLibraryFromJar(libraryName);
-        if (extractedLib != null) {
-            return extractedLib;
-        }
-        
-        // Try to find library in common development locations
-        String userDir = System.getProperty("user.dir");
-        
-        String[] libraryNames = new String[]{libraryName};
-        
-        Path[] basePaths = {
-            Paths.get(userDir, "build", "lib"),
-            Paths.get(userDir, "fsst", "build", "lib"),
-            Paths.get("build", "lib"),
-            Paths.get("fsst", "build", "lib"),
-            Paths.get("..", "fsst", "build", "lib")
-        };
-        
-        for (Path basePath : basePaths) {
-            for (String libName : libraryNames) {
-                Path libPath = basePath.resolve(libName);
-                if (java.nio.file.Files.exists(libPath)) {
-                    return libPath;
-                }
-            }
-        }
-        return null;
-    }
-    
-    /**
-     * Extract native library from JAR resources.
-     * This allows the library to be distributed as a single JAR file.
-     */
-    private static Path extractLibraryFromJar(String libraryName) {
-        try {
-            // Detect platform
-            String os = System.getProperty("os.name").toLowerCase();
-            String arch = System.getProperty("os.arch").toLowerCase();
-            
-            String osName = os.contains("mac") ? "macos" : 
-                           os.contains("linux") ? "linux" : "unknown";
-            
-            String archName = (arch.contains("aarch64") || arch.contains("arm64")) ? "aarch64" :
-                             (arch.contains("x86_64") || arch.contains("amd64")) ? "x86_64" :
-                             arch.contains("x86") ? "x86" : "unknown";
-            
-            String platformLibName = "libfsst-" + osName + "-" + archName + "." + 
-                libraryName.substring(libraryName.lastIndexOf('.') + 1);
-            
-            // Try to find the library in JAR resources
-            String resourcePath = "/META-INF/native/" + platformLibName;
-            java.io.InputStream inputStream = FsstFfm.class.getResourceAsStream(resourcePath);
-            
-            if (inputStream == null) {
-                // Try alternative naming
-                resourcePath = "/META-INF/native/" + libraryName;
-                inputStream = FsstFfm.class.getResourceAsStream(resourcePath);
-            }
-            
-            if (inputStream != null) {
-                // Extract to temporary file
-                Path tempDir = java.nio.file.Files.createTempDirectory("fsst-native-");
-                tempDir.toFile().deleteOnExit();
-                
-                Path tempLib = tempDir.resolve(libraryName);
-                java.nio.file.Files.copy(inputStream, tempLib, 
-                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                inputStream.close();
-                
-                // Make executable (Unix-like systems)
-                tempLib.toFile().setExecutable(true);
-                
-                return tempLib;
-            }
-        } catch (Exception e) {
-            // Silently fail - will try other locations
-        }
-        return null;
-    }
-    
     // Memory layouts
     private static final AddressLayout POINTER = ValueLayout.ADDRESS;
     
@@ -140,6 +44,18 @@ class FsstFfm {
     private static final MethodHandle FSST_EXPORT;
     private static final MethodHandle FSST_IMPORT;
     private static final MethodHandle FSST_DESTROY;
+    private static final MethodHandle FSST_DUPLICATE;
+    // Exported by the fsst4j shim; null when running against a plain fsst library
+    private static final MethodHandle FSST4J_DECOMPRESS;
+    // Critical variants of the shim functions, which may be passed heap segments directly
+    private static final MethodHandle FSST4J_COMPRESS_CRITICAL;
+    private static final MethodHandle FSST4J_DECOMPRESS_CRITICAL;
+    
+    /**
+     * Largest input passed through a critical downcall. Critical calls hold off garbage
+     * collection while they run, so only small-to-medium inputs use them.
+     */
+    static final long CRITICAL_MAX_BYTES = 1 << 20;
     
     static {
         try {
@@ -192,6 +108,37 @@ class FsstFfm {
                 FunctionDescriptor.ofVoid(
                     POINTER)                   // fsst_encoder_t *encoder
             );
+            
+            FSST_DUPLICATE = LINKER.downcallHandle(
+                LOOKUP.find("fsst_duplicate").orElseThrow(),
+                FunctionDescriptor.of(POINTER,
+                    POINTER)                   // fsst_encoder_t *encoder
+            );
+            
+            FunctionDescriptor decompressDescriptor = FunctionDescriptor.of(ValueLayout.JAVA_LONG,
+                POINTER,                   // const fsst_decoder_t *decoder
+                ValueLayout.JAVA_LONG,     // size_t lenIn
+                POINTER,                   // const unsigned char *strIn
+                ValueLayout.JAVA_LONG,     // size_t size
+                POINTER);                  // unsigned char *output
+            FSST4J_DECOMPRESS = LOOKUP.find("fsst4j_decompress")
+                .map(symbol -> LINKER.downcallHandle(symbol, decompressDescriptor))
+                .orElse(null);
+            FSST4J_DECOMPRESS_CRITICAL = LOOKUP.find("fsst4j_decompress")
+                .map(symbol -> LINKER.downcallHandle(symbol, decompressDescriptor,
+                    Linker.Option.critical(true)))
+                .orElse(null);
+            
+            FSST4J_COMPRESS_CRITICAL = LOOKUP.find("fsst4j_compress")
+                .map(symbol -> LINKER.downcallHandle(symbol,
+                    FunctionDescriptor.of(ValueLayout.JAVA_LONG,
+                        POINTER,               // fsst_encoder_t *encoder
+                        ValueLayout.JAVA_LONG, // size_t lenIn
+                        POINTER,               // const unsigned char *strIn
+                        ValueLayout.JAVA_LONG, // size_t outsize
+                        POINTER),              // unsigned char *output
+                    Linker.Option.critical(true)))
+                .orElse(null);
         } catch (Throwable e) {
             throw new RuntimeException("Failed to initialize fsst function handles", e);
         }
@@ -200,25 +147,32 @@ class FsstFfm {
     /**
      * Create an encoder from input data.
      * @param data Input data to create encoder from
-     * @param arena Arena for memory allocation
+     * @param allocator Allocator for memory allocation
+     * @return Memory address of the encoder
+     */
+    static MemorySegment createEncoder(byte[] data, SegmentAllocator allocator) {
+        return createEncoder(new byte[][]{data}, allocator);
+    }
+    
+    /**
+     * Create an encoder trained on a batch of strings.
+     * All strings are handed to fsst_create in a single call so the symbol table is shared.
+     * @param data Input strings to create encoder from
+     * @param allocator Allocator for memory allocation
      * @return Memory address of the encoder
      */
-    static MemorySegment createEncoder(byte[] data, Arena arena) {
+    static MemorySegment createEncoder(byte[][] data, SegmentAllocator allocator) {
         try {
-            // Allocate memory for length array
-            MemorySegment lenIn = arena.allocate(ValueLayout.JAVA_LONG);
-            lenIn.set(ValueLayout.JAVA_LONG, 0, (long) data.length);
-            
-            // Allocate memory for input data
-            MemorySegment inputData = arena.allocateFrom(ValueLayout.JAVA_BYTE, data);
+            // Allocate memory for length and string pointer arrays
+            MemorySegment lenIn = allocator.allocate(ValueLayout.JAVA_LONG, Math.max(1, data.length));
+            MemorySegment strIn = allocator.allocate(POINTER, Math.max(1, data.length));
             
-            // Allocate memory for string pointer array
-            MemorySegment strIn = arena.allocate(POINTER);
-            strIn.set(POINTER, 0, inputData);
+            // Copy all strings into one contiguous buffer and point into it
+            copyStrings(data, lenIn, strIn, allocator);
             
             // Call fsst_create
             MemorySegment encoderPtr = (MemorySegment) FSST_CREATE.invoke(
-                (long) 1,              // n = 1 string
+                (long) data.length,    // n strings
                 lenIn,                 // lenIn
                 strIn,                 // strIn
                 0                      // zeroTerminated = false
@@ -230,7 +184,7 @@ class FsstFfm {
             
             // Store encoder pointer (we'll allocate wrapper when needed)
             // Return a MemorySegment that wraps the encoder pointer
-            MemorySegment encoder = arena.allocate(POINTER);
+            MemorySegment encoder = allocator.allocate(POINTER);
             encoder.set(POINTER, 0, encoderPtr);
             return encoder;
         } catch (Throwable e) {
@@ -242,39 +196,87 @@ class FsstFfm {
      * Compress data using the encoder.
      * @param encoder Memory address of the encoder
      * @param data Input data to compress
-     * @param arena Arena for memory allocation
+     * @param allocator Allocator for memory allocation
      * @return Compressed data
      */
-    static byte[] compress(MemorySegment encoder, byte[] data, Arena arena) {
+    static byte[] compress(MemorySegment encoder, byte[] data, SegmentAllocator allocator) {
+        return compress(encoder, new byte[][]{data}, allocator)[0];
+    }
+    
+    /**
+     * Compress a batch of strings with a single fsst_compress call.
+     * @param encoder Memory address of the encoder
+     * @param data Input strings to compress
+     * @param allocator Allocator for memory allocation
+     * @return Compressed data, one entry per input string
+     */
+    static byte[][] compress(MemorySegment encoder, byte[][] data, SegmentAllocator allocator) {
+        int n = data.length;
+        MemorySegment lenOut = allocator.allocate(ValueLayout.JAVA_LONG, Math.max(1, n));
+        MemorySegment output = compressBatch(encoder, data, lenOut, allocator);
+        
+        // Extract compressed data; strings are written back to back into the output buffer
+        byte[][] compressed = new byte[n][];
+        long offset = 0;
+        for (int i = 0; i < n; i++) {
+            int compressedLen = (int) lenOut.getAtIndex(ValueLayout.JAVA_LONG, i);
+            compressed[i] = new byte[compressedLen];
+            MemorySegment.copy(output, ValueLayout.JAVA_BYTE, offset, compressed[i], 0, compressedLen);
+            offset += compressedLen;
+        }
+        return compressed;
+    }
+    
+    /**
+     * Compress a batch of strings with a single fsst_compress call, keeping the compressed strings
+     * back to back in one array as fsst_compress produces them.
+     * @param encoder Memory address of the encoder
+     * @param data Input strings to compress
+     * @param compressedLengths Receives the compressed length of each string
+     * @param allocator Allocator for memory allocation
+     * @return All compressed strings, concatenated
+     */
+    static byte[] compressContiguous(
+            MemorySegment encoder, byte[][] data, int[] compressedLengths, SegmentAllocator allocator) {
+        int n = data.length;
+        MemorySegment lenOut = allocator.allocate(ValueLayout.JAVA_LONG, Math.max(1, n));
+        MemorySegment output = compressBatch(encoder, data, lenOut, allocator);
+        
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            compressedLengths[i] = (int) lenOut.getAtIndex(ValueLayout.JAVA_LONG, i);
+            total += compressedLengths[i];
+        }
+        return output.asSlice(0, total).toArray(ValueLayout.JAVA_BYTE);
+    }
+    
+    /**
+     * Run fsst_compress over a batch of strings.
+     * @return The output buffer holding the compressed strings back to back
+     */
+    private static MemorySegment compressBatch(
+            MemorySegment encoder, byte[][] data, MemorySegment lenOut, SegmentAllocator allocator) {
         try {
             // Get encoder pointer
             MemorySegment encoderPtr = encoder.get(POINTER, 0);
+            int n = data.length;
             
-            // Allocate memory for input length
-            MemorySegment lenIn = arena.allocate(ValueLayout.JAVA_LONG, 1);
-            lenIn.set(ValueLayout.JAVA_LONG, 0, (long) data.length);
-            
-            // Allocate memory for input data
-            MemorySegment inputData = arena.allocateFrom(ValueLayout.JAVA_BYTE, data);
-            
-            // Allocate memory for string pointer array
-            MemorySegment strIn = arena.allocate(POINTER);
-            strIn.set(POINTER, 0, inputData);
+            // Allocate memory for input lengths and string pointers
+            MemorySegment lenIn = allocator.allocate(ValueLayout.JAVA_LONG, Math.max(1, n));
+            MemorySegment strIn = allocator.allocate(POINTER, Math.max(1, n));
+            long inputSize = copyStrings(data, lenIn, strIn, allocator);
             
-            // Estimate output size (conservative: 7 + 2*inputLength)
-            long outputSize = 7 + 2L * data.length;
-            MemorySegment output = arena.allocate((int) outputSize);
+            // Estimate output size (conservative: 7 + 2*inputLength per string)
+            long outputSize = 7L * n + 2L * inputSize;
+            MemorySegment output = allocator.allocate(Math.max(1, outputSize));
             
-            // Allocate memory for output length
-            MemorySegment lenOut = arena.allocate(ValueLayout.JAVA_LONG);
-            
-            // Allocate memory for output string pointer
-            MemorySegment strOut = arena.allocate(POINTER);
+            // Allocate memory for output string pointers
+            MemorySegment strOut = allocator.allocate(POINTER, Math.max(1, n));
             
             // Call fsst_compress
             long compressedCount = (long) FSST_COMPRESS.invoke(
                 encoderPtr,
-                (long) 1,              // nstrings = 1
+                (long) n,             // nstrings
                 lenIn,                // lenIn
                 strIn,                // strIn
                 outputSize,           // outsize
@@ -283,37 +285,133 @@ class FsstFfm {
                 strOut               // strOut
             );
             
-            if (compressedCount == 0) {
+            if (compressedCount != n) {
                 throw new RuntimeException("fsst_compress failed or output buffer too small");
             }
+            return output;
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to compress data", e);
+        }
+    }
+    
+    /**
+     * Copy strings into a single native buffer and fill the lenIn/strIn arrays expected by fsst.
+     * @return Total number of bytes copied
+     */
+    private static long copyStrings(byte[][] data, MemorySegment lenIn, MemorySegment strIn, SegmentAllocator allocator) {
+        long total = 0;
+        for (byte[] string : data) {
+            total += string.length;
+        }
+        MemorySegment buffer = allocator.allocate(Math.max(1, total));
+        long offset = 0;
+        for (int i = 0; i < data.length; i++) {
+            int len = data[i].length;
+            MemorySegment.copy(data[i], 0, buffer, ValueLayout.JAVA_BYTE, offset, len);
+            lenIn.setAtIndex(ValueLayout.JAVA_LONG, i, len);
+            strIn.setAtIndex(POINTER, i, buffer.asSlice(offset));
+            offset += len;
+        }
+        return total;
+    }
+    
+    /**
+     * Create an encoder from data that already lives in native memory, without copying it.
+     * @param data Native input data to create encoder from
+     * @param allocator Allocator for memory allocation
+     * @return Memory address of the encoder
+     */
+    static MemorySegment createEncoder(MemorySegment data, SegmentAllocator allocator) {
+        try {
+            MemorySegment lenIn = allocator.allocate(ValueLayout.JAVA_LONG);
+            lenIn.set(ValueLayout.JAVA_LONG, 0, data.byteSize());
+            MemorySegment strIn = allocator.allocate(POINTER);
+            strIn.set(POINTER, 0, data);
             
-            // Read compressed length
-            long compressedLen = lenOut.get(ValueLayout.JAVA_LONG, 0);
+            MemorySegment encoderPtr = (MemorySegment) FSST_CREATE.invoke(
+                (long) 1,              // n = 1 string
+                lenIn,                 // lenIn
+                strIn,                 // strIn
+                0                      // zeroTerminated = false
+            );
             
-            // Extract compressed data
-            byte[] compressed = new byte[(int) compressedLen];
-            MemorySegment.copy(output, ValueLayout.JAVA_BYTE, 0, compressed, 0, (int) compressedLen);
+            if (encoderPtr == null) {
+                throw new RuntimeException("fsst_create returned null");
+            }
+            
+            MemorySegment encoder = allocator.allocate(POINTER);
+            encoder.set(POINTER, 0, encoderPtr);
+            return encoder;
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to create fsst encoder", e);
+        }
+    }
+    
+    /**
+     * Compress native input directly into a native output buffer.
+     * @param encoder Memory address of the encoder
+     * @param data Native input data to compress
+     * @param output Native destination for the compressed data
+     * @param allocator Allocator for memory allocation
+     * @return Compressed length, or -1 if the output buffer is too small
+     */
+    static long compress(MemorySegment encoder, MemorySegment data, MemorySegment output, SegmentAllocator allocator) {
+        try {
+            MemorySegment encoderPtr = encoder.get(POINTER, 0);
+            
+            MemorySegment lenIn = allocator.allocate(ValueLayout.JAVA_LONG);
+            lenIn.set(ValueLayout.JAVA_LONG, 0, data.byteSize());
+            MemorySegment strIn = allocator.allocate(POINTER);
+            strIn.set(POINTER, 0, data);
+            MemorySegment lenOut = allocator.allocate(ValueLayout.JAVA_LONG);
+            MemorySegment strOut = allocator.allocate(POINTER);
+            
+            long compressedCount = (long) FSST_COMPRESS.invoke(
+                encoderPtr,
+                (long) 1,              // nstrings = 1
+                lenIn,                 // lenIn
+                strIn,                 // strIn
+                output.byteSize(),     // outsize
+                output,                // output
+                lenOut,                // lenOut
+                strOut                 // strOut
+            );
             
-            return compressed;
+            return compressedCount == 1 ? lenOut.get(ValueLayout.JAVA_LONG, 0) : -1;
         } catch (Throwable e) {
             throw new RuntimeException("Failed to compress data", e);
         }
     }
     
+    /**
+     * Return the segment itself if it is native, otherwise a native copy of it.
+     * @param segment Segment to pass to native code
+     * @param allocator Allocator for the copy
+     * @return A native segment with the same contents
+     */
+    static MemorySegment toNative(MemorySegment segment, SegmentAllocator allocator) {
+        if (segment.isNative()) {
+            return segment;
+        }
+        MemorySegment copy = allocator.allocate(Math.max(1, segment.byteSize())).asSlice(0, segment.byteSize());
+        copy.copyFrom(segment);
+        return copy;
+    }
+    
     /**
      * Get decoder from encoder and extract symbol table.
      * @param encoder Memory address of the encoder
-     * @param arena Arena for memory allocation
+     * @param allocator Allocator for memory allocation
      * @return Symbol table data (symbols, lengths)
      */
-    static SymbolTableData getDecoder(MemorySegment encoder, Arena arena) {
+    static SymbolTableData getDecoder(MemorySegment encoder, SegmentAllocator allocator) {
         try {
             // Get encoder pointer
             MemorySegment encoderPtr = encoder.get(POINTER, 0);
             
             // Call fsst_decoder (returns struct by value)
             // FFM automatically adds SegmentAllocator as first parameter for struct returns
-            MemorySegment decoder = (MemorySegment) FSST_DECODER.invoke(arena, encoderPtr);
+            MemorySegment decoder = (MemorySegment) FSST_DECODER.invoke(allocator, encoderPtr);
             
             // Extract symbol lengths
             // len array starts after version (8 bytes) + zeroTerminated (1 byte) = 9 bytes
@@ -358,17 +456,17 @@ class FsstFfm {
     /**
      * Export symbol table to byte array.
      * @param encoder Memory address of the encoder
-     * @param arena Arena for memory allocation
+     * @param allocator Allocator for memory allocation
      * @return Exported symbol table bytes
      */
-    static byte[] export(MemorySegment encoder, Arena arena) {
+    static byte[] export(MemorySegment encoder, SegmentAllocator allocator) {
         try {
             // Get encoder pointer
             MemorySegment encoderPtr = encoder.get(POINTER, 0);
             
             // Allocate buffer for export (max size is FSST_MAXHEADER = 8+1+8+2048+1 = 2066)
             int maxHeaderSize = 2066;
-            MemorySegment buf = arena.allocate(maxHeaderSize);
+            MemorySegment buf = allocator.allocate(maxHeaderSize);
             
             // Call fsst_export
             int exportedSize = (int) FSST_EXPORT.invoke(encoderPtr, buf);
@@ -390,16 +488,16 @@ class FsstFfm {
     /**
      * Import symbol table from byte array.
      * @param data Exported symbol table bytes
-     * @param arena Arena for memory allocation
+     * @param allocator Allocator for memory allocation
      * @return Symbol table data (symbols, lengths)
      */
-    static SymbolTableData import_(byte[] data, Arena arena) {
+    static SymbolTableData import_(byte[] data, SegmentAllocator allocator) {
         try {
-            // Allocate decoder structure
-            MemorySegment decoder = arena.allocate(FSST_DECODER_T);
+            // Allocate decoder structure; scratch memory is not zeroed, and unused codes must read as length 0
+            MemorySegment decoder = allocator.allocate(FSST_DECODER_T).fill((byte) 0);
             
             // Allocate buffer and copy data
-            MemorySegment buf = arena.allocateFrom(ValueLayout.JAVA_BYTE, data);
+            MemorySegment buf = allocator.allocateFrom(ValueLayout.JAVA_BYTE, data);
             
             // Call fsst_import
             int importedSize = (int) FSST_IMPORT.invoke(decoder, buf);
@@ -462,6 +560,128 @@ class FsstFfm {
         }
     }
     
+    /**
+     * Duplicate an encoder so the same symbol table can be used from another thread.
+     * @param encoder Memory address of the encoder
+     * @param allocator Allocator for memory allocation
+     * @return Memory address of the new encoder
+     */
+    static MemorySegment duplicate(MemorySegment encoder, SegmentAllocator allocator) {
+        try {
+            // Get encoder pointer
+            MemorySegment encoderPtr = encoder.get(POINTER, 0);
+            MemorySegment duplicatePtr = (MemorySegment) FSST_DUPLICATE.invoke(encoderPtr);
+            
+            if (duplicatePtr == null || duplicatePtr.equals(MemorySegment.NULL)) {
+                throw new RuntimeException("fsst_duplicate returned null");
+            }
+            
+            MemorySegment duplicate = allocator.allocate(POINTER);
+            duplicate.set(POINTER, 0, duplicatePtr);
+            return duplicate;
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to duplicate encoder", e);
+        }
+    }
+    
+    /**
+     * Whether the native library exports the fsst4j decompression shim.
+     */
+    static boolean hasNativeDecompress() {
+        return FSST4J_DECOMPRESS != null;
+    }
+    
+    /**
+     * Whether the native library exports the shim functions used for critical downcalls.
+     */
+    static boolean hasCriticalCalls() {
+        return FSST4J_COMPRESS_CRITICAL != null && FSST4J_DECOMPRESS_CRITICAL != null;
+    }
+    
+    /**
+     * Compress a single string with a critical downcall. Input and output may be heap segments,
+     * which the native library accesses in place.
+     * @param encoder Memory address of the encoder
+     * @param input Data to compress, at most {@link #CRITICAL_MAX_BYTES} bytes
+     * @param output Destination for the compressed data
+     * @return Compressed length, or -1 if the output buffer is too small
+     */
+    static long compressCritical(MemorySegment encoder, MemorySegment input, MemorySegment output) {
+        try {
+            MemorySegment encoderPtr = encoder.get(POINTER, 0);
+            return (long) FSST4J_COMPRESS_CRITICAL.invoke(
+                encoderPtr,
+                input.byteSize(),     // lenIn
+                input,                // strIn
+                output.byteSize(),    // outsize
+                output                // output
+            );
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to compress data", e);
+        }
+    }
+    
+    /**
+     * Decompress data with a critical downcall. Input and output may be heap segments, which the
+     * native library accesses in place.
+     * @param decoder Memory address of the fsst_decoder_t
+     * @param input Compressed data, at most {@link #CRITICAL_MAX_BYTES} bytes
+     * @param output Destination for the decompressed data
+     * @return Full decompressed size, which exceeds the output size if the output was too small
+     */
+    static long decompressCritical(MemorySegment decoder, MemorySegment input, MemorySegment output) {
+        try {
+            return (long) FSST4J_DECOMPRESS_CRITICAL.invoke(
+                decoder,
+                input.byteSize(),     // lenIn
+                input,                // strIn
+                output.byteSize(),    // size
+                output                // output
+            );
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to decompress data", e);
+        }
+    }
+    
+    /**
+     * Build a native fsst_decoder_t from packed symbol words.
+     * @param words Symbols packed as little-endian words, one per code
+     * @param lengths Length of each symbol
+     * @param allocator Allocator for memory allocation
+     * @return Memory address of the decoder structure
+     */
+    static MemorySegment createDecoder(long[] words, int[] lengths, SegmentAllocator allocator) {
+        MemorySegment decoder = allocator.allocate(FSST_DECODER_T).fill((byte) 0);
+        long lenOffset = FSST_DECODER_T.byteOffset(MemoryLayout.PathElement.groupElement("len"));
+        long symbolOffset = FSST_DECODER_T.byteOffset(MemoryLayout.PathElement.groupElement("symbol"));
+        for (int i = 0; i < 255; i++) {
+            decoder.set(ValueLayout.JAVA_BYTE, lenOffset + i, (byte) lengths[i]);
+            decoder.set(ValueLayout.JAVA_LONG, symbolOffset + i * 8L, words[i]);
+        }
+        return decoder;
+    }
+    
+    /**
+     * Decompress data with the native decoder.
+     * @param decoder Memory address of the fsst_decoder_t
+     * @param input Compressed data
+     * @param output Destination for the decompressed data
+     * @return Full decompressed size, which exceeds the output size if the output was too small
+     */
+    static long decompress(MemorySegment decoder, MemorySegment input, MemorySegment output) {
+        try {
+            return (long) FSST4J_DECOMPRESS.invoke(
+                decoder,
+                input.byteSize(),     // lenIn
+                input,                // strIn
+                output.byteSize(),    // size
+                output                // output
+            );
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to decompress data", e);
+        }
+    }
+    
     /**
      * Helper class to hold symbol table data.
      */
@@ -1,7 +1,7 @@
 package nl.bartlouwers.fsst;
 
-import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 
 /**
  * Implementation of the Fsst interface using Foreign Function &amp; Memory API.
@@ -20,24 +20,34 @@ public class FsstImpl implements Fsst {
             throw new IllegalArgumentException("Input data cannot be null");
         }
         
-        // Use an arena to manage memory lifecycle
-        try (Arena arena = Arena.ofConfined()) {
-            // Create encoder from input data
-            MemorySegment encoder = FsstFfm.createEncoder(data, arena);
+        return encode(MemorySegment.ofArray(data));
+    }
+    
+    private SymbolTable encode(MemorySegment data) {
+        // Use the thread's scratch memory for the lifetime of this call
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            // Copy heap input to native memory once; it is used for both training and compression
+            MemorySegment input = FsstFfm.toNative(data, scratch);
+            MemorySegment encoder = FsstFfm.createEncoder(input, scratch);
             
             try {
                 // Compress the data
-                byte[] compressedData = FsstFfm.compress(encoder, data, arena);
+                MemorySegment output = scratch.allocate(FsstEncoder.maxCompressedLength(input.byteSize()));
+                long compressedLength = FsstFfm.compress(encoder, input, output, scratch);
+                if (compressedLength < 0) {
+                    throw new RuntimeException("fsst_compress failed or output buffer too small");
+                }
+                byte[] compressedData = output.asSlice(0, compressedLength).toArray(ValueLayout.JAVA_BYTE);
                 
                 // Get decoder to extract symbol table
-                FsstFfm.SymbolTableData symbolData = FsstFfm.getDecoder(encoder, arena);
+                FsstFfm.SymbolTableData symbolData = FsstFfm.getDecoder(encoder, scratch);
                 
                 // Return SymbolTable with all required information
                 return new SymbolTable(
                     symbolData.symbols,
                     symbolData.symbolLengths,
                     compressedData,
-                    data.length  // decompressed length is the original input length
+                    Math.toIntExact(input.byteSize())  // decompressed length is the original input length
                 );
             } finally {
                 // Clean up encoder
@@ -46,6 +56,45 @@ public class FsstImpl implements Fsst {
         }
     }
     
+    /**
+     * Encode a batch of strings using FSST compression with one shared symbol table.
+     * 
+     * @param data Input strings to compress
+     * @return BatchSymbolTable containing the compressed strings and the shared symbol table
+     */
+    @Override
+    public BatchSymbolTable encodeAll(byte[][] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Input data cannot be null");
+        }
+        int[] decompressedLengths = new int[data.length];
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == null) {
+                throw new IllegalArgumentException("Input string " + i + " cannot be null");
+            }
+            decompressedLengths[i] = data[i].length;
+        }
+        
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            // Train a single encoder over all strings
+            MemorySegment encoder = FsstFfm.createEncoder(data, scratch);
+            
+            try {
+                byte[][] compressedData = FsstFfm.compress(encoder, data, scratch);
+                FsstFfm.SymbolTableData symbolData = FsstFfm.getDecoder(encoder, scratch);
+                
+                return new BatchSymbolTable(
+                    symbolData.symbols,
+                    symbolData.symbolLengths,
+                    compressedData,
+                    decompressedLengths
+                );
+            } finally {
+                FsstFfm.destroy(encoder);
+            }
+        }
+    }
+    
     @Override
     public byte[] decode(SymbolTable encoded) {
         return decode(
@@ -58,29 +107,6 @@ public class FsstImpl implements Fsst {
     @Override
     public byte[] decode(
             byte[] symbols, int[] symbolLengths, byte[] compressedData, int decompressedLength) {
-        // optimized decoder that knows the output size so pre-allocates the array to avoid dynamically
-        // allocating a ByteArrayOutputStream
-        int idx = 0;
-        byte[] output = new byte[decompressedLength];
-        int[] symbolOffsets = new int[symbolLengths.length];
-        for (int i = 1; i < symbolLengths.length; i++) {
-            symbolOffsets[i] = symbolOffsets[i - 1] + symbolLengths[i - 1];
-        }
-        for (int i = 0; i < compressedData.length; i++) {
-            // In Java a byte[] is signed [-128 to 127], whereas in C++ it is unsigned [0 to 255]
-            // So we do a bit shifting operation to convert the values into unsigned values for easier
-            // handling
-            int symbolIndex = compressedData[i] & 0xFF;
-            // 255 is our escape byte -> take the next symbol as it is
-            if (symbolIndex == 255) {
-                output[idx++] = compressedData[++i];
-            } else if (symbolIndex < symbolLengths.length) {
-                int len = symbolLengths[symbolIndex];
-                System.arraycopy(symbols, symbolOffsets[symbolIndex], output, idx, len);
-                idx += len;
-            }
-        }
-        return output;
+        return FsstDecoder.of(symbols, symbolLengths).decode(compressedData, decompressedLength);
     }
 }
-
@@ -0,0 +1,224 @@
+package nl.bartlouwers.fsst;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An input stream that decompresses the framed block format written by {@link FsstOutputStream}.
+ * <p>
+ * One block is decoded at a time with {@link FsstDecoder}, which decodes natively for blocks of
+ * 1 MiB and more when the shim library is available, so memory use is bounded by the largest block
+ * in the stream. Buffers only grow with the data actually read, and corrupt or truncated input
+ * fails with an {@link IOException}.
+ * <p>
+ * A stream is not thread-safe.
+ */
+public class FsstInputStream extends FilterInputStream {
+    
+    /** Largest symbol table accepted, matching the native export buffer. */
+    private static final int MAX_TABLE_LENGTH = 2066;
+    /** Initial size of the compressed payload buffer. */
+    private static final int MIN_PAYLOAD_BUFFER = 64 * 1024;
+    
+    private final DataInputStream data;
+    private FsstDecoder decoder;
+    private byte[] compressed = new byte[0];
+    private byte[] block = new byte[0];
+    private int position;
+    private int limit;
+    private boolean headerRead;
+    private boolean ended;
+    private boolean closed;
+    
+    /**
+     * Create a stream that decompresses the data read from {@code in}.
+     * 
+     * @param in The stream to read compressed data from
+     */
+    public FsstInputStream(InputStream in) {
+        super(Objects.requireNonNull(in, "in"));
+        this.data = new DataInputStream(in);
+    }
+    
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return block[position++] & 0xFF;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(block, position, b, off, n);
+        position += n;
+        return n;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int step = (int) Math.min(n - skipped, limit - position);
+            position += step;
+            skipped += step;
+        }
+        return skipped;
+    }
+    
+    /**
+     * Number of decoded bytes that can be read without decoding another block.
+     */
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return limit - position;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        super.close();
+    }
+    
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+    
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+    
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+    
+    /**
+     * Make sure there are decoded bytes to read, decoding the next non-empty block if needed.
+     * 
+     * @return false at the end of the stream
+     */
+    private boolean fill() throws IOException {
+        ensureOpen();
+        while (position == limit) {
+            if (ended || !readBlock()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean readBlock() throws IOException {
+        try {
+            if (!headerRead) {
+                byte[] magic = new byte[FsstOutputStream.MAGIC.length];
+                data.readFully(magic);
+                if (!Arrays.equals(magic, FsstOutputStream.MAGIC)) {
+                    throw new IOException("Not an FSST stream");
+                }
+                int version = data.readUnsignedByte();
+                if (version != FsstOutputStream.VERSION) {
+                    throw new IOException("Unsupported FSST stream version " + version);
+                }
+                headerRead = true;
+            }
+            
+            int flags = data.readUnsignedByte();
+            if (flags == FsstOutputStream.FLAG_END) {
+                ended = true;
+                return false;
+            }
+            if ((flags & ~FsstOutputStream.FLAG_TABLE) != 0) {
+                throw new IOException("Invalid frame flags " + flags);
+            }
+            if ((flags & FsstOutputStream.FLAG_TABLE) != 0) {
+                byte[] table = new byte[readLength(MAX_TABLE_LENGTH, "symbol table")];
+                data.readFully(table);
+                try {
+                    decoder = FsstDecoder.importTable(table);
+                } catch (RuntimeException e) {
+                    throw new IOException("Invalid symbol table", e);
+                }
+            } else if (decoder == null) {
+                throw new IOException("Block without a symbol table");
+            }
+            
+            int decompressedLength = readLength(FsstOutputStream.MAX_BLOCK_SIZE, "block");
+            int compressedLength = readLength(
+                (int) FsstEncoder.maxCompressedLength(decompressedLength), "compressed block");
+            // Every code decodes to at most 8 bytes
+            if (decompressedLength > (long) compressedLength * FsstDecoder.MAX_SYMBOL_LENGTH) {
+                throw new IOException("Corrupt block: " + compressedLength + " compressed bytes cannot decode to "
+                    + decompressedLength + " bytes");
+            }
+            readPayload(compressedLength);
+            
+            // Only allocated once the payload has arrived, so it is bounded by the data actually read
+            if (block.length < decompressedLength) {
+                block = new byte[decompressedLength];
+            }
+            int written;
+            try {
+                written = decoder.decode(compressed, 0, compressedLength, block, 0, decompressedLength);
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException("Corrupt block", e);
+            }
+            if (written != decompressedLength) {
+                throw new IOException("Corrupt block: decoded " + written + " bytes, expected " + decompressedLength);
+            }
+            position = 0;
+            limit = written;
+            return true;
+        } catch (EOFException e) {
+            EOFException truncated = new EOFException("Truncated FSST stream");
+            truncated.initCause(e);
+            throw truncated;
+        }
+    }
+    
+    /**
+     * Read a compressed payload into {@link #compressed}. The buffer grows as data arrives rather
+     * than up front, so a corrupt length cannot make the reader allocate far more than the stream
+     * holds.
+     */
+    private void readPayload(int length) throws IOException {
+        int n = 0;
+        while (n < length) {
+            if (n == compressed.length) {
+                compressed = Arrays.copyOf(compressed, Math.min(length, Math.max(2 * n, MIN_PAYLOAD_BUFFER)));
+            }
+            int chunk = Math.min(length, compressed.length) - n;
+            data.readFully(compressed, n, chunk);
+            n += chunk;
+        }
+    }
+    
+    private int readLength(int max, String what) throws IOException {
+        int length = data.readInt();
+        if (length < 0 || length > max) {
+            throw new IOException("Invalid " + what + " length " + length);
+        }
+        return length;
+    }
+    
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package nl.bartlouwers.fsst;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+
+/**
+ * An output stream that compresses data with FSST in blocks, for inputs too large to hold in
+ * memory at once. Read the result back with {@link FsstInputStream}.
+ * <p>
+ * Data is buffered into blocks of a fixed size, and each full block is compressed and written
+ * as one frame, so memory use is bounded by the block size however much is written. The stream
+ * starts with a header, followed by the frames and an end marker:
+ * <pre>
+ * header: "FSST" version(1 byte)
+ * frame:  flags(1 byte) [tableLength(int) table] decompressedLength(int) compressedLength(int) data
+ * end:    flags = 0x80
+ * </pre>
+ * A frame with the {@code TABLE} flag carries a symbol table exported with {@code fsst_export};
+ * it applies to that frame and every following frame until the next table. Integers are
+ * big-endian.
+ * <p>
+ * By default a symbol table is trained on every block, which adapts to changing data. Blocks can
+ * instead share the table trained on the first block, or the table of a given encoder, which
+ * saves training time and table overhead. A shared table is only fixed once it was trained on a
+ * full block or {@value #TRAINING_SAMPLE_SIZE} bytes; blocks cut short by an earlier
+ * {@link #flush()} get a table of their own.
+ * <p>
+ * A stream is not thread-safe.
+ */
+public class FsstOutputStream extends FilterOutputStream {
+    
+    static final byte[] MAGIC = {'F', 'S', 'S', 'T'};
+    static final int VERSION = 1;
+    /** Frame flag: a symbol table follows. */
+    static final int FLAG_TABLE = 0x01;
+    /** Frame flag: end of the stream; nothing follows. */
+    static final int FLAG_END = 0x80;
+    /** Default block size: 1 MiB. */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    /** Largest block size, which keeps the worst-case compressed size of a block within an int. */
+    public static final int MAX_BLOCK_SIZE = 1 << 29;
+    /** Bytes a shared table must be trained on before it is fixed; FSST samples no more than this. */
+    static final int TRAINING_SAMPLE_SIZE = 1 << 14;
+    
+    private final DataOutputStream data;
+    private final byte[] block;
+    private final boolean retrain;
+    private final boolean ownsEncoder;
+    private FsstEncoder encoder;
+    private byte[] compressed;
+    private int count;
+    private int trainedOn;
+    private boolean headerWritten;
+    private boolean tableWritten;
+    private boolean finished;
+    
+    /**
+     * Create a stream with {@value #DEFAULT_BLOCK_SIZE}-byte blocks that trains a symbol table
+     * for every block.
+     * 
+     * @param out The stream to write the compressed data to
+     */
+    public FsstOutputStream(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE, true);
+    }
+    
+    /**
+     * Create a stream that trains its own symbol tables.
+     * 
+     * @param out The stream to write the compressed data to
+     * @param blockSize Uncompressed size of each block, at most {@link #MAX_BLOCK_SIZE}
+     * @param retrainEachBlock Whether to train a new table for every block, or to train one on the
+     *                         first block and reuse it for the rest
+     */
+    public FsstOutputStream(OutputStream out, int blockSize, boolean retrainEachBlock) {
+        this(out, blockSize, null, retrainEachBlock);
+    }
+    
+    /**
+     * Create a stream that compresses every block with the symbol table of an already trained
+     * encoder. The encoder is not closed by this stream.
+     * 
+     * @param out The stream to write the compressed data to
+     * @param blockSize Uncompressed size of each block, at most {@link #MAX_BLOCK_SIZE}
+     * @param encoder The encoder to compress with
+     */
+    public FsstOutputStream(OutputStream out, int blockSize, FsstEncoder encoder) {
+        this(out, blockSize, Objects.requireNonNull(encoder, "encoder"), false);
+    }
+    
+    private FsstOutputStream(OutputStream out, int blockSize, FsstEncoder encoder, boolean retrain) {
+        super(Objects.requireNonNull(out, "out"));
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Block size must be between 1 and " + MAX_BLOCK_SIZE);
+        }
+        this.data = new DataOutputStream(out);
+        this.block = new byte[blockSize];
+        this.encoder = encoder;
+        this.ownsEncoder = encoder == null;
+        this.retrain = retrain;
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == block.length) {
+            writeBlock();
+        }
+        block[count++] = (byte) b;
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            if (count == block.length) {
+                writeBlock();
+            }
+            int n = Math.min(len, block.length - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+    
+    /**
+     * Compress and write the buffered data as a (possibly short) block, then flush the
+     * underlying stream. When blocks share one table and the data so far is too short to train
+     * it well, the short block carries its own table and the shared table is trained later.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlock();
+        data.flush();
+    }
+    
+    /**
+     * Write the remaining data and the end marker without closing the underlying stream.
+     * 
+     * @throws IOException if writing fails
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        try {
+            writeBlock();
+            writeHeader();
+            data.writeByte(FLAG_END);
+            data.flush();
+        } finally {
+            finished = true;
+            if (ownsEncoder && encoder != null) {
+                encoder.close();
+                encoder = null;
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+    
+    private void writeBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        writeHeader();
+        
+        boolean newTable = false;
+        boolean undertrained = trainedOn < Math.min(block.length, TRAINING_SAMPLE_SIZE);
+        if (encoder == null || (ownsEncoder && (retrain || undertrained))) {
+            if (encoder != null) {
+                encoder.close();
+                encoder = null;
+            }
+            encoder = FsstEncoder.train(MemorySegment.ofArray(block).asSlice(0, count));
+            trainedOn = count;
+            newTable = true;
+        }
+        
+        if (compressed == null) {
+            compressed = new byte[(int) FsstEncoder.maxCompressedLength(block.length)];
+        }
+        int compressedLength = encoder.compress(block, 0, count, compressed, 0);
+        
+        // The first frame always carries the table, also when compressing with a given encoder
+        if (newTable || !tableWritten) {
+            byte[] table = encoder.exportTable();
+            data.writeByte(FLAG_TABLE);
+            data.writeInt(table.length);
+            data.write(table);
+            tableWritten = true;
+        } else {
+            data.writeByte(0);
+        }
+        data.writeInt(count);
+        data.writeInt(compressedLength);
+        data.write(compressed, 0, compressedLength);
+        count = 0;
+    }
+    
+    private void writeHeader() throws IOException {
+        if (!headerWritten) {
+            data.write(MAGIC);
+            data.writeByte(VERSION);
+            headerWritten = true;
+        }
+    }
+    
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Stream is finished");
+        }
+    }
+}
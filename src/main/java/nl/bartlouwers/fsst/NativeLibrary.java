@@ -0,0 +1,137 @@
+package nl.bartlouwers.fsst;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Locates and loads the fsst native library.
+ * <p>
+ * Loading is split into steps (resource lookup, extraction, {@code System.load}) so that the cost
+ * of each can be measured separately.
+ */
+final class NativeLibrary {
+    
+    private static boolean loaded;
+    
+    private NativeLibrary() {
+    }
+    
+    /**
+     * Load the native library, once per class loader.
+     */
+    static synchronized void load() {
+        if (loaded) {
+            return;
+        }
+        String libraryName = System.mapLibraryName("fsst");
+        Path libraryPath = find(libraryName);
+        if (libraryPath != null) {
+            System.load(libraryPath.toAbsolutePath().toString());
+        } else {
+            // Try to load from system library path
+            try {
+                System.loadLibrary("fsst");
+            } catch (UnsatisfiedLinkError e) {
+                throw new RuntimeException("Failed to load fsst library: " + e.getMessage(), e);
+            }
+        }
+        loaded = true;
+    }
+    
+    /**
+     * Find the library file: extracted from the JAR if it is embedded, otherwise in one of the
+     * development locations.
+     * @param libraryName Platform file name of the library
+     * @return Path of the library, or null to fall back to the system library path
+     */
+    static Path find(String libraryName) {
+        // First, try to extract from JAR resources (for Maven distribution)
+        String resourcePath = resourcePath(libraryName);
+        if (resourcePath != null) {
+            Path extractedLib = extract(resourcePath, libraryName);
+            if (extractedLib != null) {
+                return extractedLib;
+            }
+        }
+        
+        // Try to find library in common development locations
+        String userDir = System.getProperty("user.dir");
+        
+        Path[] basePaths = {
+            Paths.get(userDir, "build", "lib"),
+            Paths.get(userDir, "fsst", "build", "lib"),
+            Paths.get("build", "lib"),
+            Paths.get("fsst", "build", "lib"),
+            Paths.get("..", "fsst", "build", "lib")
+        };
+        
+        for (Path basePath : basePaths) {
+            Path libPath = basePath.resolve(libraryName);
+            if (Files.exists(libPath)) {
+                return libPath;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Look up the library among the JAR resources.
+     * @param libraryName Platform file name of the library
+     * @return Resource path of the embedded library, or null if it is not embedded
+     */
+    static String resourcePath(String libraryName) {
+        // Detect platform
+        String os = System.getProperty("os.name").toLowerCase();
+        String arch = System.getProperty("os.arch").toLowerCase();
+        
+        String osName = os.contains("mac") ? "macos" : 
+                       os.contains("linux") ? "linux" : "unknown";
+        
+        String archName = (arch.contains("aarch64") || arch.contains("arm64")) ? "aarch64" :
+                         (arch.contains("x86_64") || arch.contains("amd64")) ? "x86_64" :
+                         arch.contains("x86") ? "x86" : "unknown";
+        
+        String platformLibName = "libfsst-" + osName + "-" + archName + "." + 
+            libraryName.substring(libraryName.lastIndexOf('.') + 1);
+        
+        String resourcePath = "/META-INF/native/" + platformLibName;
+        if (NativeLibrary.class.getResource(resourcePath) != null) {
+            return resourcePath;
+        }
+        // Try alternative naming
+        resourcePath = "/META-INF/native/" + libraryName;
+        return NativeLibrary.class.getResource(resourcePath) != null ? resourcePath : null;
+    }
+    
+    /**
+     * Extract an embedded library to a temporary file.
+     * This allows the library to be distributed as a single JAR file.
+     * @param resourcePath Resource path from {@link #resourcePath(String)}
+     * @param libraryName Platform file name of the library
+     * @return Path of the extracted library, or null if extraction failed
+     */
+    static Path extract(String resourcePath, String libraryName) {
+        try (InputStream inputStream = NativeLibrary.class.getResourceAsStream(resourcePath)) {
+            if (inputStream == null) {
+                return null;
+            }
+            Path tempDir = Files.createTempDirectory("fsst-native-");
+            tempDir.toFile().deleteOnExit();
+            
+            Path tempLib = tempDir.resolve(libraryName);
+            Files.copy(inputStream, tempLib, 
+                StandardCopyOption.REPLACE_EXISTING);
+            
+            // Make executable (Unix-like systems)
+            tempLib.toFile().setExecutable(true);
+            
+            return tempLib;
+        } catch (Exception e) {
+            // Silently fail - will try other locations
+            return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package nl.bartlouwers.fsst;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
+
+/**
+ * Per-thread scratch memory for native calls.
+ * <p>
+ * Each thread keeps one native block that allocations are sliced from. The block grows to the
+ * high-water mark of the calls made on that thread and is reused by every following call, so
+ * short calls do not pay for malloc/free. Requests beyond {@link #MAX_RETAINED_BYTES} are served
+ * from a temporary arena that is freed when the scratch arena is closed.
+ * <p>
+ * Memory returned by a scratch arena is not zeroed and is only valid until it is closed. Slices
+ * of the retained block are not invalidated on close, since the block lives on for the next call;
+ * using one afterwards is not detected and reads or overwrites another call's data. Allocating
+ * from a closed scratch arena throws.
+ */
+final class ScratchArena implements SegmentAllocator, AutoCloseable {
+    
+    /** Largest block kept per thread between calls. */
+    static final long MAX_RETAINED_BYTES = 4L << 20;
+    private static final long MIN_BLOCK_BYTES = 4096;
+    
+    private static final ThreadLocal<ScratchArena> CURRENT = ThreadLocal.withInitial(ScratchArena::new);
+    
+    private MemorySegment block = MemorySegment.NULL;
+    private long offset;
+    private Arena overflow;
+    private boolean inUse;
+    
+    private ScratchArena() {
+    }
+    
+    /**
+     * Get the calling thread's scratch arena. It must be closed when the call is done.
+     * @return A scratch arena that is empty
+     */
+    static ScratchArena acquire() {
+        ScratchArena scratch = CURRENT.get();
+        if (scratch.inUse) {
+            // Nested use on the same thread gets its own, non-retained scratch arena
+            scratch = new ScratchArena();
+        }
+        scratch.inUse = true;
+        return scratch;
+    }
+    
+    @Override
+    public MemorySegment allocate(long byteSize, long byteAlignment) {
+        if (!inUse) {
+            throw new IllegalStateException("Scratch arena is closed");
+        }
+        long start = alignedOffset(block, offset, byteAlignment);
+        if (start + byteSize <= block.byteSize()) {
+            offset = start + byteSize;
+            return block.asSlice(start, byteSize);
+        }
+        
+        long needed = byteSize + byteAlignment;
+        if (needed > MAX_RETAINED_BYTES) {
+            if (overflow == null) {
+                overflow = Arena.ofConfined();
+            }
+            return overflow.allocate(byteSize, byteAlignment);
+        }
+        
+        // Grow: earlier slices keep the old block reachable, so it is freed once they are gone
+        long size = Math.max(MIN_BLOCK_BYTES, Math.max(block.byteSize() * 2, offset + needed));
+        block = Arena.ofAuto().allocate(Math.min(size, MAX_RETAINED_BYTES), 16);
+        start = alignedOffset(block, 0, byteAlignment);
+        offset = start + byteSize;
+        return block.asSlice(start, byteSize);
+    }
+    
+    private static long alignedOffset(MemorySegment block, long offset, long byteAlignment) {
+        long address = block.address() + offset;
+        long aligned = (address + byteAlignment - 1) & -byteAlignment;
+        return offset + (aligned - address);
+    }
+    
+    /**
+     * Release all allocations made since {@link #acquire()}, keeping the block for reuse.
+     */
+    @Override
+    public void close() {
+        offset = 0;
+        inUse = false;
+        if (overflow != null) {
+            overflow.close();
+            overflow = null;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package nl.bartlouwers.fsst;
+
+/**
+ * Result of grouping the rows of a compressed column by value.
+ * 
+ * @param keys The distinct values, one per group, decoded back to back
+ * @param counts Number of rows in each group
+ * @param groupIds Group of each row, or -1 for rows that were not grouped
+ */
+public record StringGroups(
+    DecodedStrings keys,
+    int[] counts,
+    int[] groupIds
+) {
+
+  /**
+   * Number of groups.
+   * 
+   * @return The number of distinct values
+   */
+  public int size() {
+    return counts.length;
+  }
+
+  /**
+   * The value of a group.
+   * 
+   * @param group Group index
+   * @return The group's value
+   */
+  public byte[] key(int group) {
+    return keys.get(group);
+  }
+}
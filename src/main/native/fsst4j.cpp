@@ -0,0 +1,25 @@
+// Exported wrappers for fsst functions that fsst.h only defines inline, so that
+// they are present in the shared library and reachable from FsstFfm.
+#include "fsst.h"
+
+extern "C" {
+
+size_t fsst4j_decompress(const fsst_decoder_t *decoder, size_t lenIn, const unsigned char *strIn, size_t size, unsigned char *output) {
+    return fsst_decompress(decoder, lenIn, strIn, size, output);
+}
+
+// Compress a single string. Unlike fsst_compress, the input is passed directly rather than
+// through a pointer array, so that Java heap memory can be passed with critical downcalls.
+// Returns the compressed length, or (size_t) -1 if the output buffer is too small.
+size_t fsst4j_compress(fsst_encoder_t *encoder, size_t lenIn, const unsigned char *strIn, size_t outsize, unsigned char *output) {
+    const unsigned char *in[1] = { strIn };
+    size_t len[1] = { lenIn };
+    size_t lenOut[1] = { 0 };
+    unsigned char *strOut[1] = { nullptr };
+    if (fsst_compress(encoder, 1, len, in, outsize, output, lenOut, strOut) != 1) {
+        return (size_t) -1;
+    }
+    return lenOut[0];
+}
+
+}
@@ -0,0 +1,325 @@
+package nl.bartlouwers.fsst;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Test suite for random access to compressed string columns.
+ */
+class CompressedStringColumnTest {
+    
+    static byte[][] values(int count) {
+        String[] domains = {"example.com", "example.org", "shop.example.net"};
+        byte[][] values = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            String value = i % 17 == 0
+                ? ""
+                : "https://" + domains[i % domains.length] + "/item/" + (i % 50) + "?page=" + (i % 7);
+            values[i] = value.getBytes(StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+    
+    @Test
+    void testGetEachRow() {
+        byte[][] values = values(500);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        
+        assertEquals(values.length, column.size());
+        assertTrue(column.data().length < column.decompressedOffsets()[values.length]);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(values[i].length, column.length(i));
+            assertArrayEquals(values[i], column.get(i));
+        }
+    }
+    
+    @Test
+    void testGetIntoBuffer() {
+        byte[][] values = values(50);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        
+        byte[] scratch = new byte[128];
+        for (int i = 0; i < values.length; i++) {
+            int written = column.get(i, scratch, 3);
+            assertArrayEquals(values[i], Arrays.copyOfRange(scratch, 3, 3 + written));
+        }
+    }
+    
+    @Test
+    void testGetSelectedRows() {
+        byte[][] values = values(1000);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        int[] rows = {999, 0, 17, 3, 3, 500, 42};
+        
+        DecodedStrings selected = column.get(rows);
+        assertEquals(rows.length, selected.size());
+        for (int i = 0; i < rows.length; i++) {
+            assertArrayEquals(values[rows[i]], selected.get(i));
+        }
+        
+        byte[] dst = new byte[selected.data().length];
+        int[] dstOffsets = new int[rows.length + 1];
+        assertEquals(dst.length, column.get(rows, dst, dstOffsets));
+        assertArrayEquals(selected.data(), dst);
+        assertArrayEquals(selected.offsets(), dstOffsets);
+    }
+    
+    @Test
+    void testGetSelectedRowsLeavesRestOfBufferUntouched() {
+        byte[][] values = values(1000);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        int[] rows = {5, 999, 0};
+        
+        byte[] dst = new byte[1024];
+        Arrays.fill(dst, (byte) '#');
+        int[] dstOffsets = new int[rows.length + 1];
+        int written = column.get(rows, dst, dstOffsets);
+        for (int i = 0; i < rows.length; i++) {
+            assertArrayEquals(values[rows[i]], Arrays.copyOfRange(dst, dstOffsets[i], dstOffsets[i + 1]));
+        }
+        for (int k = written; k < dst.length; k++) {
+            assertEquals((byte) '#', dst[k]);
+        }
+    }
+    
+    @Test
+    void testGetAll() {
+        byte[][] values = values(1000);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        
+        DecodedStrings all = column.getAll();
+        assertEquals(values.length, all.size());
+        for (int i = 0; i < values.length; i++) {
+            assertArrayEquals(values[i], all.get(i));
+        }
+        assertArrayEquals(column.decompressedOffsets(), all.offsets());
+        
+        byte[] dst = new byte[all.data().length + 5];
+        assertEquals(all.data().length, column.getAll(dst, 5));
+        assertArrayEquals(all.data(), Arrays.copyOfRange(dst, 5, dst.length));
+        assertThrows(IndexOutOfBoundsException.class, () -> column.getAll(dst, 6));
+    }
+    
+    @Test
+    void testGetAllLargeColumn() {
+        // Large enough to take the native decode path when the shim library is available
+        byte[][] values = values(400_000);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        assertTrue(column.data().length >= FsstDecoder.NATIVE_DECODE_THRESHOLD);
+        
+        DecodedStrings all = column.getAll();
+        for (int i = 0; i < values.length; i += 97) {
+            assertArrayEquals(values[i], all.get(i));
+        }
+        assertArrayEquals(values[values.length - 1], all.get(values.length - 1));
+    }
+    
+    @Test
+    void testGetSelectedRowsOutOfRangeThrows() {
+        CompressedStringColumn column = CompressedStringColumn.encode(values(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> column.get(new int[]{1, 10}));
+    }
+    
+    @Test
+    void testFilterEquals() {
+        byte[][] values = values(1000);
+        try (FsstEncoder encoder = FsstEncoder.train(values)) {
+            CompressedStringColumn column = CompressedStringColumn.encode(encoder, values);
+            
+            for (byte[] needle : new byte[][]{values[1], values[2], values[0], "https://nowhere".getBytes(StandardCharsets.UTF_8)}) {
+                BitSet expected = new BitSet();
+                for (int i = 0; i < values.length; i++) {
+                    if (Arrays.equals(values[i], needle)) {
+                        expected.set(i);
+                    }
+                }
+                assertEquals(expected, column.filterEquals(encoder, needle));
+                assertEquals(expected.isEmpty() ? -1 : expected.nextSetBit(0), column.indexOfEquals(encoder, needle));
+            }
+            
+            // A duplicate or an equal table from elsewhere works too
+            try (FsstEncoder copy = encoder.duplicate()) {
+                CompressedStringColumn rebuilt = CompressedStringColumn.of(
+                    FsstDecoder.importTable(encoder.exportTable()), column.data(), column.offsets(), column.decompressedOffsets());
+                assertEquals(column.filterEquals(encoder, values[5]), rebuilt.filterEquals(copy, values[5]));
+            }
+        }
+    }
+    
+    @Test
+    void testFilterEqualsWithoutEncoder() {
+        byte[][] values = values(1000);
+        values[7] = values[3].clone();
+        values[8] = "".getBytes(StandardCharsets.UTF_8);
+        // Columns built without access to their encoder
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        CompressedStringColumn batch = CompressedStringColumn.of(new FsstImpl().encodeAll(values));
+        
+        byte[] prefixOfRow = Arrays.copyOf(values[3], values[3].length - 1);
+        for (byte[] needle : new byte[][]{values[3], values[0], values[8], prefixOfRow,
+                "https://nowhere".getBytes(StandardCharsets.UTF_8)}) {
+            BitSet expected = new BitSet();
+            for (int i = 0; i < values.length; i++) {
+                if (Arrays.equals(values[i], needle)) {
+                    expected.set(i);
+                }
+            }
+            assertEquals(expected, column.filterEquals(needle));
+            assertEquals(expected, batch.filterEquals(needle));
+            assertEquals(expected.isEmpty() ? -1 : expected.nextSetBit(0), column.indexOfEquals(needle));
+        }
+    }
+    
+    @Test
+    void testFilterStartsWithAndContains() {
+        byte[][] values = values(1000);
+        values[3] = "https://".getBytes(StandardCharsets.UTF_8);
+        values[4] = "ab\u00ffcd\u0001https://x".getBytes(StandardCharsets.ISO_8859_1);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        
+        String[] needles = {"", "h", "https://", "https://example.org/item/1", "https://shop.example.net/item/49?page=3",
+            "example", "/item/4", "?page=6", "page=0x", "\u00ffcd\u0001", "ab", "nowhere", "ss"};
+        for (String s : needles) {
+            byte[] needle = s.getBytes(StandardCharsets.ISO_8859_1);
+            BitSet startsWith = new BitSet();
+            BitSet contains = new BitSet();
+            for (int i = 0; i < values.length; i++) {
+                if (values[i].length >= needle.length
+                        && Arrays.equals(values[i], 0, needle.length, needle, 0, needle.length)) {
+                    startsWith.set(i);
+                }
+                if (indexOf(values[i], needle) >= 0) {
+                    contains.set(i);
+                }
+            }
+            assertEquals(startsWith, column.filterStartsWith(needle), s);
+            assertEquals(contains, column.filterContains(needle), s);
+        }
+    }
+    
+    @Test
+    void testContainsWithRepeatedPattern() {
+        // Overlapping partial matches exercise the matcher's fallback
+        byte[][] values = {
+            "aaab".getBytes(StandardCharsets.UTF_8),
+            "abaabab".getBytes(StandardCharsets.UTF_8),
+            "ababaab".getBytes(StandardCharsets.UTF_8),
+            "abaab".getBytes(StandardCharsets.UTF_8)
+        };
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        BitSet expected = new BitSet();
+        expected.set(1);
+        expected.set(2);
+        expected.set(3);
+        assertEquals(expected, column.filterContains("abaab".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(BitSet.valueOf(new long[]{1}), column.filterContains("aaab".getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    private static int indexOf(byte[] haystack, byte[] needle) {
+        outer:
+        for (int i = 0; i + needle.length <= haystack.length; i++) {
+            for (int j = 0; j < needle.length; j++) {
+                if (haystack[i + j] != needle[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+    
+    @Test
+    void testGroupBy() {
+        byte[][] values = values(5000);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        
+        StringGroups groups = column.groupBy();
+        Map<String, Integer> expected = new HashMap<>();
+        for (byte[] value : values) {
+            expected.merge(new String(value, StandardCharsets.UTF_8), 1, Integer::sum);
+        }
+        assertEquals(expected.size(), groups.size());
+        for (int g = 0; g < groups.size(); g++) {
+            assertEquals((int) expected.get(new String(groups.key(g), StandardCharsets.UTF_8)), groups.counts()[g]);
+        }
+        for (int i = 0; i < values.length; i++) {
+            assertArrayEquals(values[i], groups.key(groups.groupIds()[i]));
+        }
+    }
+    
+    @Test
+    void testGroupBySelection() {
+        byte[][] values = values(1000);
+        CompressedStringColumn column = CompressedStringColumn.encode(values);
+        BitSet secure = column.filterStartsWith("https://example.org".getBytes(StandardCharsets.UTF_8));
+        
+        StringGroups groups = column.groupBy(secure);
+        int total = 0;
+        for (int count : groups.counts()) {
+            total += count;
+        }
+        assertEquals(secure.cardinality(), total);
+        for (int i = 0; i < values.length; i++) {
+            if (secure.get(i)) {
+                assertArrayEquals(values[i], groups.key(groups.groupIds()[i]));
+            } else {
+                assertEquals(-1, groups.groupIds()[i]);
+            }
+        }
+        assertEquals(0, CompressedStringColumn.encode(new byte[0][]).groupBy().size());
+    }
+    
+    @Test
+    void testFilterEqualsWithOtherTableThrows() {
+        CompressedStringColumn column = CompressedStringColumn.encode(values(100));
+        byte[][] other = {"completely different".getBytes(StandardCharsets.UTF_8)};
+        try (FsstEncoder encoder = FsstEncoder.train(other)) {
+            assertThrows(IllegalArgumentException.class, () -> column.filterEquals(encoder, other[0]));
+        }
+    }
+    
+    @Test
+    void testFromBatchAndParts() {
+        byte[][] values = values(100);
+        CompressedStringColumn fromBatch = CompressedStringColumn.of(new FsstImpl().encodeAll(values));
+        CompressedStringColumn fromParts = CompressedStringColumn.of(
+            fromBatch.decoder(), fromBatch.data(), fromBatch.offsets(), fromBatch.decompressedOffsets());
+        
+        for (int i = 0; i < values.length; i++) {
+            assertArrayEquals(values[i], fromBatch.get(i));
+            assertArrayEquals(values[i], fromParts.get(i));
+        }
+    }
+    
+    @Test
+    void testEmptyColumn() {
+        CompressedStringColumn column = CompressedStringColumn.encode(new byte[0][]);
+        assertEquals(0, column.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> column.get(0));
+    }
+    
+    @Test
+    void testInvalidPartsThrow() {
+        CompressedStringColumn column = CompressedStringColumn.encode(values(10));
+        assertThrows(IllegalArgumentException.class, () -> CompressedStringColumn.of(
+            column.decoder(), column.data(), new int[]{0, 1}, column.decompressedOffsets()));
+    }
+    
+    @Test
+    void testNullValuesThrow() {
+        assertThrows(IllegalArgumentException.class, () -> CompressedStringColumn.encode(null));
+        assertThrows(IllegalArgumentException.class,
+            () -> CompressedStringColumn.encode(new byte[][]{"a".getBytes(StandardCharsets.UTF_8), null}));
+        try (FsstEncoder encoder = FsstEncoder.train(values(10))) {
+            assertThrows(IllegalArgumentException.class, () -> CompressedStringColumn.encode(encoder, null));
+            assertThrows(IllegalArgumentException.class,
+                () -> CompressedStringColumn.encode(encoder, new byte[][]{null}));
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package nl.bartlouwers.fsst;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Side-by-side report of FSST and {@link Deflater} on the dbtext corpus.
+ * <p>
+ * Each file is treated as a column with one row per line. FSST compresses every row on its own
+ * ({@link CompressedStringColumn}); Deflate compresses blocks of rows, since per-row Deflate
+ * barely compresses. Random row access decodes one row with FSST and one whole block with
+ * Deflate. Sizes include the FSST symbol table but no row offsets for either codec.
+ */
+class DeflateComparisonTest {
+    
+    private static final int[] DEFLATE_LEVELS = {1, 6, 9};
+    /** Uncompressed size of a Deflate block. */
+    private static final int DEFLATE_BLOCK_SIZE = 64 * 1024;
+    /** Timings are the best of this many runs. */
+    private static final int REPETITIONS = 5;
+    private static final int RANDOM_ROWS = 10_000;
+    
+    private record Result(long compressedBytes, long compressNanos, long decompressNanos, double rowAccessNanos) {
+    }
+    
+    @Test
+    void testCompareWithDeflate() throws Exception {
+        Path dbtextDir = Paths.get("fsst/paper/dbtext");
+        if (!Files.exists(dbtextDir)) {
+            // Try alternative path
+            dbtextDir = Paths.get("../fsst/paper/dbtext");
+            if (!Files.exists(dbtextDir)) {
+                System.out.println("Skipping Deflate comparison: directory not found");
+                return;
+            }
+        }
+        
+        List<Path> files;
+        try (var stream = Files.list(dbtextDir)) {
+            files = stream.filter(Files::isRegularFile).sorted().toList();
+        }
+        
+        System.out.println("\n=== FSST vs Deflate on dbtext Corpus ===\n");
+        System.out.printf("%-16s %-10s %12s %8s %12s %12s %12s%n",
+            "File", "Codec", "Size (B)", "Ratio", "Comp MB/s", "Decomp MB/s", "Row (ns)");
+        System.out.println("------------------------------------------------------------------------------------");
+        
+        Map<String, long[]> totals = new LinkedHashMap<>();
+        long totalOriginal = 0;
+        for (Path file : files) {
+            byte[][] rows = rows(Files.readAllBytes(file));
+            long original = 0;
+            for (byte[] row : rows) {
+                original += row.length;
+            }
+            if (rows.length == 0 || original == 0) {
+                continue;
+            }
+            totalOriginal += original;
+            int[] randomRows = new Random(42).ints(RANDOM_ROWS, 0, rows.length).toArray();
+            
+            Map<String, Result> results = new LinkedHashMap<>();
+            results.put("fsst", fsst(rows, randomRows));
+            for (int level : DEFLATE_LEVELS) {
+                results.put("deflate-" + level, deflate(rows, randomRows, level));
+            }
+            
+            String name = file.getFileName().toString();
+            for (Map.Entry<String, Result> entry : results.entrySet()) {
+                Result result = entry.getValue();
+                System.out.printf("%-16s %-10s %,12d %7.2fx %12.1f %12.1f %12.0f%n",
+                    name, entry.getKey(), result.compressedBytes(),
+                    (double) result.compressedBytes() / original,
+                    megabytesPerSecond(original, result.compressNanos()),
+                    megabytesPerSecond(original, result.decompressNanos()),
+                    result.rowAccessNanos());
+                name = "";
+                
+                long[] total = totals.computeIfAbsent(entry.getKey(), k -> new long[3]);
+                total[0] += result.compressedBytes();
+                total[1] += result.compressNanos();
+                total[2] += result.decompressNanos();
+            }
+        }
+        
+        System.out.println("------------------------------------------------------------------------------------");
+        String name = "TOTAL";
+        for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+            long[] total = entry.getValue();
+            System.out.printf("%-16s %-10s %,12d %7.2fx %12.1f %12.1f%n",
+                name, entry.getKey(), total[0], (double) total[0] / totalOriginal,
+                megabytesPerSecond(totalOriginal, total[1]), megabytesPerSecond(totalOriginal, total[2]));
+            name = "";
+        }
+        System.out.println();
+    }
+    
+    private static Result fsst(byte[][] rows, int[] randomRows) {
+        CompressedStringColumn[] column = new CompressedStringColumn[1];
+        long compressNanos = bestNanos(() -> column[0] = CompressedStringColumn.encode(rows));
+        CompressedStringColumn compressed = column[0];
+        
+        byte[] decoded = new byte[compressed.decompressedOffsets()[rows.length]];
+        long decompressNanos = bestNanos(() -> compressed.getAll(decoded, 0));
+        
+        byte[] row = new byte[maxLength(rows)];
+        long accessNanos = bestNanos(() -> {
+            for (int r : randomRows) {
+                compressed.get(r, row, 0);
+            }
+        });
+        for (int r : randomRows) {
+            assertArrayEquals(rows[r], compressed.get(r), "FSST row " + r);
+        }
+        
+        long size = compressed.data().length + compressed.decoder().symbols().length;
+        return new Result(size, compressNanos, decompressNanos, (double) accessNanos / randomRows.length);
+    }
+    
+    private static Result deflate(byte[][] rows, int[] randomRows, int level) {
+        DeflatedBlocks[] blocks = new DeflatedBlocks[1];
+        long compressNanos = bestNanos(() -> blocks[0] = DeflatedBlocks.compress(rows, level));
+        DeflatedBlocks compressed = blocks[0];
+        
+        byte[] decoded = new byte[DEFLATE_BLOCK_SIZE + maxLength(rows)];
+        long decompressNanos = bestNanos(() -> {
+            for (int b = 0; b < compressed.blocks.size(); b++) {
+                compressed.inflate(b, decoded);
+            }
+        });
+        
+        byte[] row = new byte[maxLength(rows)];
+        long accessNanos = bestNanos(() -> {
+            for (int r : randomRows) {
+                compressed.get(r, decoded, row);
+            }
+        });
+        for (int r : randomRows) {
+            int length = compressed.get(r, decoded, row);
+            assertArrayEquals(rows[r], Arrays.copyOf(row, length), "Deflate row " + r);
+        }
+        
+        return new Result(compressed.size(), compressNanos, decompressNanos, (double) accessNanos / randomRows.length);
+    }
+    
+    /**
+     * Rows compressed with Deflate in blocks of about {@link #DEFLATE_BLOCK_SIZE} bytes.
+     */
+    private static final class DeflatedBlocks {
+        
+        final List<byte[]> blocks = new ArrayList<>();
+        final int[] blockOfRow;
+        final int[] rowOffset;
+        final int[] rowLength;
+        
+        private DeflatedBlocks(int rows) {
+            blockOfRow = new int[rows];
+            rowOffset = new int[rows];
+            rowLength = new int[rows];
+        }
+        
+        static DeflatedBlocks compress(byte[][] rows, int level) {
+            DeflatedBlocks result = new DeflatedBlocks(rows.length);
+            Deflater deflater = new Deflater(level);
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            for (int r = 0; r < rows.length; r++) {
+                if (block.size() > 0 && block.size() + rows[r].length > DEFLATE_BLOCK_SIZE) {
+                    result.blocks.add(deflate(deflater, block.toByteArray()));
+                    block.reset();
+                }
+                result.blockOfRow[r] = result.blocks.size();
+                result.rowOffset[r] = block.size();
+                result.rowLength[r] = rows[r].length;
+                block.writeBytes(rows[r]);
+            }
+            result.blocks.add(deflate(deflater, block.toByteArray()));
+            deflater.end();
+            return result;
+        }
+        
+        private static byte[] deflate(Deflater deflater, byte[] data) {
+            deflater.reset();
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[DEFLATE_BLOCK_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        }
+        
+        int inflate(int block, byte[] out) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(blocks.get(block));
+                return inflater.inflate(out);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                inflater.end();
+            }
+        }
+        
+        int get(int row, byte[] scratch, byte[] out) {
+            inflate(blockOfRow[row], scratch);
+            System.arraycopy(scratch, rowOffset[row], out, 0, rowLength[row]);
+            return rowLength[row];
+        }
+        
+        long size() {
+            long size = 0;
+            for (byte[] block : blocks) {
+                size += block.length;
+            }
+            return size;
+        }
+    }
+    
+    private static byte[][] rows(byte[] data) {
+        List<byte[]> rows = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= data.length; i++) {
+            if (i == data.length || data[i] == '\n') {
+                if (i > start || i < data.length) {
+                    rows.add(Arrays.copyOfRange(data, start, i));
+                }
+                start = i + 1;
+            }
+        }
+        return rows.toArray(new byte[0][]);
+    }
+    
+    private static int maxLength(byte[][] rows) {
+        int max = 0;
+        for (byte[] row : rows) {
+            max = Math.max(max, row.length);
+        }
+        return max;
+    }
+    
+    private static long bestNanos(Runnable action) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            action.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+    
+    private static double megabytesPerSecond(long bytes, long nanos) {
+        return bytes / 1e6 / (nanos / 1e9);
+    }
+}
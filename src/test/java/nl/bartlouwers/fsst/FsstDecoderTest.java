@@ -0,0 +1,210 @@
+package nl.bartlouwers.fsst;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test suite for the reusable FSST decoder.
+ */
+class FsstDecoderTest {
+    
+    private final Fsst fsst = new FsstImpl();
+    
+    private static byte[] text(int repeat) {
+        return "The quick brown fox jumps over the lazy dog. ".repeat(repeat)
+            .getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Test
+    void testDecoderMatchesFsstDecode() {
+        byte[] data = text(50);
+        SymbolTable encoded = fsst.encode(data);
+        FsstDecoder decoder = FsstDecoder.of(encoded);
+        
+        assertArrayEquals(data, decoder.decode(encoded));
+        assertArrayEquals(fsst.decode(encoded), decoder.decode(encoded.compressedData(), data.length));
+    }
+    
+    @Test
+    void testDecoderReusedAcrossPayloads() {
+        byte[][] data = new byte[200][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = ("row-" + i + " status=ok").getBytes(StandardCharsets.UTF_8);
+        }
+        BatchSymbolTable batch = fsst.encodeAll(data);
+        FsstDecoder decoder = FsstDecoder.of(batch.symbols(), batch.symbolLengths());
+        
+        for (int i = 0; i < data.length; i++) {
+            assertArrayEquals(data[i], decoder.decode(batch.compressedData()[i], batch.decompressedLengths()[i]));
+        }
+    }
+    
+    @Test
+    void testDecodeLengthsAroundWordBoundary() {
+        byte[] sample = text(20);
+        try (FsstEncoder encoder = FsstEncoder.train(sample)) {
+            FsstDecoder decoder = FsstDecoder.of(encoder.symbols(), encoder.symbolLengths());
+            for (int len = 0; len <= 40; len++) {
+                byte[] data = Arrays.copyOf(sample, len);
+                assertArrayEquals(data, decoder.decode(encoder.compress(data), len), "length " + len);
+            }
+        }
+    }
+    
+    @Test
+    void testDecodeEscapedBytes() {
+        Random random = new Random(7);
+        byte[] data = new byte[4096];
+        random.nextBytes(data);
+        SymbolTable encoded = fsst.encode(data);
+        
+        assertArrayEquals(data, FsstDecoder.of(encoded).decode(encoded));
+    }
+    
+    @Test
+    void testLargePayloadMatchesJavaDecode() {
+        Random random = new Random(11);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 8 * FsstDecoder.NATIVE_DECODE_THRESHOLD) {
+            sb.append("id=").append(random.nextInt(100000)).append(";name=user").append(random.nextInt(500)).append('\n');
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        SymbolTable encoded = fsst.encode(data);
+        assertTrue(encoded.compressedData().length >= FsstDecoder.NATIVE_DECODE_THRESHOLD);
+        FsstDecoder decoder = FsstDecoder.of(encoded);
+        
+        byte[] javaDecoded = new byte[data.length];
+        decoder.decodeJava(encoded.compressedData(), 0, encoded.compressedData().length, javaDecoded, 0, data.length);
+        assertArrayEquals(data, javaDecoded);
+        assertArrayEquals(data, decoder.decode(encoded));
+    }
+    
+    @Test
+    void testDecodeManyIntoScratchBuffer() {
+        byte[][] data = new byte[100][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = ("GET /api/v1/items/" + i + " HTTP/1.1").getBytes(StandardCharsets.UTF_8);
+        }
+        BatchSymbolTable batch = fsst.encodeAll(data);
+        FsstDecoder decoder = FsstDecoder.of(batch.symbols(), batch.symbolLengths());
+        
+        byte[] scratch = new byte[64];
+        for (int i = 0; i < data.length; i++) {
+            byte[] compressed = batch.compressedData()[i];
+            int written = decoder.decode(compressed, 0, compressed.length, scratch, 0);
+            assertArrayEquals(data[i], Arrays.copyOf(scratch, written));
+        }
+    }
+    
+    @Test
+    void testDecodeWithOutputLimit() {
+        byte[] data = text(3);
+        SymbolTable encoded = fsst.encode(data);
+        FsstDecoder decoder = FsstDecoder.of(encoded);
+        byte[] compressed = encoded.compressedData();
+        
+        // Nothing at or beyond the limit is written, even with room left in the buffer
+        byte[] out = new byte[data.length + 20];
+        Arrays.fill(out, (byte) '#');
+        int written = decoder.decode(compressed, 0, compressed.length, out, 3, 3 + data.length);
+        assertEquals(data.length, written);
+        assertArrayEquals(data, Arrays.copyOfRange(out, 3, 3 + data.length));
+        for (int k = 3 + data.length; k < out.length; k++) {
+            assertEquals((byte) '#', out[k]);
+        }
+        
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> decoder.decode(compressed, 0, compressed.length, out, 3, 3 + data.length - 1));
+        assertThrows(IndexOutOfBoundsException.class,
+            () -> decoder.decode(compressed, 0, compressed.length, out, 3, out.length + 1));
+    }
+    
+    @Test
+    void testDecodeHeapSegmentSlices() {
+        byte[] data = text(3);
+        SymbolTable encoded = fsst.encode(data);
+        FsstDecoder decoder = FsstDecoder.of(encoded);
+        
+        // Compressed data and output both sit at non-zero offsets of larger heap arrays
+        byte[] input = new byte[encoded.compressedData().length + 5];
+        System.arraycopy(encoded.compressedData(), 0, input, 5, encoded.compressedData().length);
+        byte[] output = new byte[data.length + 9];
+        long written = decoder.decode(
+            MemorySegment.ofArray(input).asSlice(5),
+            MemorySegment.ofArray(output).asSlice(9));
+        
+        assertEquals(data.length, written);
+        assertArrayEquals(data, Arrays.copyOfRange(output, 9, output.length));
+    }
+    
+    @Test
+    void testDecodePrefix() {
+        byte[] sample = text(20);
+        try (FsstEncoder encoder = FsstEncoder.train(sample)) {
+            FsstDecoder decoder = encoder.decoder();
+            byte[] compressed = encoder.compress(sample);
+            for (int max : new int[]{0, 1, 7, 8, 9, 15, 16, 17, 100, sample.length, sample.length + 10}) {
+                byte[] expected = Arrays.copyOf(sample, Math.min(max, sample.length));
+                assertArrayEquals(expected, decoder.decodePrefix(compressed, max), "max " + max);
+                
+                // Bytes after the prefix in a caller buffer are left untouched
+                byte[] out = new byte[max + 12];
+                Arrays.fill(out, (byte) '#');
+                assertEquals(expected.length, decoder.decodePrefix(compressed, 0, compressed.length, out, 2, max));
+                assertArrayEquals(expected, Arrays.copyOfRange(out, 2, 2 + expected.length));
+                for (int k = 2 + expected.length; k < out.length; k++) {
+                    assertEquals((byte) '#', out[k], "max " + max);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void testCompareMatchesUnsignedOrder() {
+        Random random = new Random(11);
+        byte[] sample = text(20);
+        byte[][] values = new byte[300][];
+        for (int i = 0; i < values.length; i++) {
+            int start = random.nextInt(40);
+            byte[] value = Arrays.copyOfRange(sample, start, start + random.nextInt(40));
+            if (value.length > 0 && random.nextInt(4) == 0) {
+                value[random.nextInt(value.length)] = (byte) (random.nextInt(256));
+            }
+            values[i] = value;
+        }
+        try (FsstEncoder encoder = FsstEncoder.train(values)) {
+            FsstDecoder decoder = encoder.decoder();
+            byte[][] compressed = encoder.compressAll(values);
+            for (int i = 0; i < values.length; i++) {
+                for (int j = 0; j < values.length; j += 7) {
+                    assertEquals(Integer.signum(Arrays.compareUnsigned(values[i], values[j])),
+                        Integer.signum(decoder.compare(compressed[i], values[j])), i + " vs " + j);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void testImportExportedTable() {
+        byte[] data = text(20);
+        try (FsstEncoder encoder = FsstEncoder.train(data)) {
+            FsstDecoder decoder = FsstDecoder.importTable(encoder.exportTable());
+            assertArrayEquals(data, decoder.decode(encoder.compress(data), data.length));
+        }
+    }
+    
+    @Test
+    void testRejectsInvalidSymbolTable() {
+        assertThrows(IllegalArgumentException.class,
+            () -> FsstDecoder.of(new byte[9], new int[]{9}));
+        assertThrows(IllegalArgumentException.class,
+            () -> FsstDecoder.of(new byte[1], new int[]{2}));
+        assertThrows(IllegalArgumentException.class,
+            () -> FsstDecoder.of(new byte[0], new int[256]));
+    }
+}
@@ -0,0 +1,176 @@
+package nl.bartlouwers.fsst;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test suite for the reusable, trained FSST encoder.
+ */
+class FsstEncoderTest {
+    
+    private final Fsst fsst = new FsstImpl();
+    
+    private static byte[][] sampleUrls(int count) {
+        byte[][] data = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            data[i] = ("https://www.example.com/products/" + i + "/details?ref=home")
+                .getBytes(StandardCharsets.UTF_8);
+        }
+        return data;
+    }
+    
+    @Test
+    void testTrainOnceCompressMany() {
+        try (FsstEncoder encoder = FsstEncoder.train(sampleUrls(100))) {
+            for (int i = 1000; i < 1100; i++) {
+                byte[] data = ("https://www.example.com/products/" + i + "/details?ref=mail")
+                    .getBytes(StandardCharsets.UTF_8);
+                SymbolTable encoded = encoder.encode(data);
+                assertSame(encoder.symbols(), encoded.symbols());
+                assertArrayEquals(data, fsst.decode(encoded));
+            }
+        }
+    }
+    
+    @Test
+    void testCompressAllMatchesCompress() {
+        byte[][] data = sampleUrls(50);
+        try (FsstEncoder encoder = FsstEncoder.train(data)) {
+            byte[][] batch = encoder.compressAll(data);
+            for (int i = 0; i < data.length; i++) {
+                assertArrayEquals(encoder.compress(data[i]), batch[i]);
+            }
+            byte[][] decoded = fsst.decodeAll(encoder.encodeAll(data));
+            for (int i = 0; i < data.length; i++) {
+                assertArrayEquals(data[i], decoded[i]);
+            }
+        }
+    }
+    
+    @Test
+    void testDuplicateSharesSymbolTable() {
+        byte[][] data = sampleUrls(20);
+        try (FsstEncoder encoder = FsstEncoder.train(data);
+             FsstEncoder copy = encoder.duplicate()) {
+            for (byte[] value : data) {
+                assertArrayEquals(encoder.compress(value), copy.compress(value));
+            }
+        }
+    }
+    
+    @Test
+    void testNativeSegmentRoundTrip() {
+        byte[] data = "native segments are compressed in place, in place, in place".getBytes(StandardCharsets.UTF_8);
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment input = arena.allocateFrom(ValueLayout.JAVA_BYTE, data);
+            MemorySegment compressed = arena.allocate(FsstEncoder.maxCompressedLength(data.length));
+            MemorySegment decompressed = arena.allocate(data.length);
+            
+            try (FsstEncoder encoder = FsstEncoder.train(input)) {
+                long compressedLength = encoder.compress(input, compressed);
+                FsstDecoder decoder = FsstDecoder.of(encoder.symbols(), encoder.symbolLengths());
+                long written = decoder.decode(compressed.asSlice(0, compressedLength), decompressed);
+                
+                assertEquals(data.length, written);
+                assertArrayEquals(data, decompressed.toArray(ValueLayout.JAVA_BYTE));
+                assertArrayEquals(encoder.compress(data),
+                    compressed.asSlice(0, compressedLength).toArray(ValueLayout.JAVA_BYTE));
+            }
+        }
+    }
+    
+    @Test
+    void testHeapSegmentRoundTrip() {
+        byte[] data = "heap segments are copied through native memory".getBytes(StandardCharsets.UTF_8);
+        try (FsstEncoder encoder = FsstEncoder.train(data)) {
+            byte[] compressed = new byte[(int) FsstEncoder.maxCompressedLength(data.length)];
+            long compressedLength = encoder.compress(MemorySegment.ofArray(data), MemorySegment.ofArray(compressed));
+            
+            byte[] decompressed = new byte[data.length];
+            FsstDecoder decoder = FsstDecoder.of(encoder.symbols(), encoder.symbolLengths());
+            decoder.decode(MemorySegment.ofArray(compressed).asSlice(0, compressedLength), MemorySegment.ofArray(decompressed));
+            assertArrayEquals(data, decompressed);
+        }
+    }
+    
+    @Test
+    void testDirectByteBufferRoundTrip() {
+        byte[] data = "direct buffers are read and written in place".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer input = ByteBuffer.allocateDirect(data.length).put(data).flip();
+        ByteBuffer compressed = ByteBuffer.allocateDirect((int) FsstEncoder.maxCompressedLength(data.length));
+        ByteBuffer decompressed = ByteBuffer.allocateDirect(data.length);
+        
+        try (FsstEncoder encoder = FsstEncoder.train(data)) {
+            int compressedLength = encoder.compress(input, compressed);
+            assertEquals(compressedLength, compressed.position());
+            assertFalse(input.hasRemaining());
+            
+            compressed.flip();
+            FsstDecoder decoder = FsstDecoder.of(encoder.symbols(), encoder.symbolLengths());
+            assertEquals(data.length, decoder.decode(compressed, decompressed));
+            
+            byte[] result = new byte[data.length];
+            decompressed.flip().get(result);
+            assertArrayEquals(data, result);
+        }
+    }
+    
+    @Test
+    void testCompressAppendsIntoPageBuffer() {
+        byte[][] data = sampleUrls(10);
+        try (FsstEncoder encoder = FsstEncoder.train(data)) {
+            byte[] page = new byte[4096];
+            int[] offsets = new int[data.length + 1];
+            for (int i = 0; i < data.length; i++) {
+                offsets[i + 1] = offsets[i] + encoder.compress(data[i], 0, data[i].length, page, offsets[i]);
+            }
+            
+            FsstDecoder decoder = FsstDecoder.of(encoder.symbols(), encoder.symbolLengths());
+            for (int i = 0; i < data.length; i++) {
+                byte[] compressed = Arrays.copyOfRange(page, offsets[i], offsets[i + 1]);
+                assertArrayEquals(encoder.compress(data[i]), compressed);
+                assertArrayEquals(data[i], decoder.decode(compressed, data[i].length));
+            }
+        }
+    }
+    
+    @Test
+    void testCompressIntoTooSmallOutputThrows() {
+        byte[] data = new byte[1000];
+        new Random(3).nextBytes(data);
+        try (FsstEncoder encoder = FsstEncoder.train(data)) {
+            assertThrows(IllegalArgumentException.class,
+                () -> encoder.compress(MemorySegment.ofArray(data), MemorySegment.ofArray(new byte[10])));
+        }
+    }
+    
+    @Test
+    void testExportTable() {
+        try (FsstEncoder encoder = FsstEncoder.train(sampleUrls(20))) {
+            byte[] exported = encoder.exportTable();
+            assertTrue(exported.length > 0);
+        }
+    }
+    
+    @Test
+    void testClosedEncoderThrows() {
+        FsstEncoder encoder = FsstEncoder.train("sample".getBytes(StandardCharsets.UTF_8));
+        encoder.close();
+        encoder.close();
+        assertThrows(IllegalStateException.class, () -> encoder.compress(new byte[]{1, 2, 3}));
+    }
+    
+    @Test
+    void testTrainNullThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> FsstEncoder.train((byte[]) null));
+        assertThrows(IllegalArgumentException.class, () -> FsstEncoder.train(new byte[][]{null}));
+    }
+}
@@ -0,0 +1,218 @@
+package nl.bartlouwers.fsst;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Test suite for the framed block-compressing streams.
+ */
+class FsstStreamTest {
+    
+    private static byte[] sampleLog(int lines) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("2024-01-01T00:00:").append(i % 60).append(" INFO request ")
+                .append(i).append(" GET /api/users/").append(i * 7).append(" 200\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static byte[] readAll(byte[] compressed) throws IOException {
+        try (InputStream in = new FsstInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+    
+    @Test
+    void testRoundTripRetrainEachBlock() throws IOException {
+        byte[] input = sampleLog(2000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(bytes, 4096, true)) {
+            out.write(input);
+        }
+        assertTrue(bytes.size() < input.length);
+        assertArrayEquals(input, readAll(bytes.toByteArray()));
+    }
+    
+    @Test
+    void testRoundTripSharedTable() throws IOException {
+        byte[] input = sampleLog(2000);
+        ByteArrayOutputStream retrained = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(retrained, 4096, true)) {
+            out.write(input);
+        }
+        ByteArrayOutputStream shared = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(shared, 4096, false)) {
+            out.write(input);
+        }
+        assertArrayEquals(input, readAll(shared.toByteArray()));
+        // Only the first frame carries a table
+        assertTrue(shared.size() < retrained.size());
+    }
+    
+    @Test
+    void testRoundTripGivenEncoder() throws IOException {
+        byte[] input = sampleLog(2000);
+        try (FsstEncoder encoder = FsstEncoder.train(sampleLog(100))) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (FsstOutputStream out = new FsstOutputStream(bytes, 4096, encoder)) {
+                out.write(input);
+            }
+            assertArrayEquals(input, readAll(bytes.toByteArray()));
+            // The stream does not close a caller's encoder
+            assertArrayEquals(input, encoder.decoder().decode(encoder.compress(input), input.length));
+        }
+    }
+    
+    @Test
+    void testSingleByteWritesAndReads() throws IOException {
+        byte[] input = sampleLog(50);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(bytes, 100, true)) {
+            for (byte b : input) {
+                out.write(b);
+            }
+        }
+        try (InputStream in = new FsstInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (byte b : input) {
+                assertEquals(b & 0xFF, in.read());
+            }
+            assertEquals(-1, in.read());
+        }
+    }
+    
+    @Test
+    void testFlushWritesShortBlock() throws IOException {
+        byte[] input = sampleLog(100);
+        int half = input.length / 2;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(bytes, 1 << 16, false)) {
+            out.write(input, 0, half);
+            out.flush();
+            // The flushed data is readable before the stream is finished
+            try (InputStream in = new FsstInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                assertArrayEquals(Arrays.copyOf(input, half), in.readNBytes(half));
+            }
+            out.write(input, half, input.length - half);
+        }
+        assertArrayEquals(input, readAll(bytes.toByteArray()));
+    }
+    
+    @Test
+    void testEarlyFlushDoesNotFixSharedTable() throws IOException {
+        byte[] input = sampleLog(2000);
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(plain, 4096, false)) {
+            out.write(input);
+        }
+        ByteArrayOutputStream flushed = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(flushed, 4096, false)) {
+            out.write(input, 0, 10);
+            out.flush();
+            out.write(input, 10, input.length - 10);
+        }
+        assertArrayEquals(input, readAll(flushed.toByteArray()));
+        // A table trained on the 10 flushed bytes would leave the rest nearly uncompressed
+        assertTrue(flushed.size() < plain.size() + 4096, flushed.size() + " vs " + plain.size());
+    }
+    
+    @Test
+    void testEmptyStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new FsstOutputStream(bytes).close();
+        assertArrayEquals(new byte[0], readAll(bytes.toByteArray()));
+    }
+    
+    @Test
+    void testFinishKeepsUnderlyingStreamOpen() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        FsstOutputStream out = new FsstOutputStream(bytes);
+        out.write(sampleLog(10));
+        out.finish();
+        assertThrows(IOException.class, () -> out.write(1));
+        int length = bytes.size();
+        bytes.write(42);
+        // The reader stops at the end marker
+        try (InputStream in = new FsstInputStream(new ByteArrayInputStream(bytes.toByteArray(), 0, length))) {
+            assertArrayEquals(sampleLog(10), in.readAllBytes());
+        }
+    }
+    
+    @Test
+    void testTruncatedStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(bytes, 4096, true)) {
+            out.write(sampleLog(500));
+        }
+        byte[] compressed = bytes.toByteArray();
+        assertThrows(EOFException.class, () -> readAll(Arrays.copyOf(compressed, compressed.length - 1)));
+        assertThrows(EOFException.class, () -> readAll(Arrays.copyOf(compressed, compressed.length / 2)));
+    }
+    
+    /**
+     * A stream with a single frame.
+     */
+    private static byte[] singleFrame() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FsstOutputStream out = new FsstOutputStream(bytes)) {
+            out.write(sampleLog(200));
+        }
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Offset of the decompressed length field of a stream's first frame.
+     */
+    private static int lengthsOffset(byte[] stream) {
+        // header(5) flags(1) tableLength(4) table
+        return 5 + 1 + 4 + ByteBuffer.wrap(stream).getInt(6);
+    }
+    
+    @Test
+    void testCorruptFrameThrows() throws IOException {
+        byte[] stream = singleFrame();
+        int lengths = lengthsOffset(stream);
+        
+        byte[] badFlags = stream.clone();
+        badFlags[5] ^= 0x40;
+        assertThrows(IOException.class, () -> readAll(badFlags));
+        
+        byte[] badLength = stream.clone();
+        badLength[lengths + 3] ^= 0x01;
+        assertThrows(IOException.class, () -> readAll(badLength));
+    }
+    
+    @Test
+    void testHugeFrameLengthsThrowWithoutAllocating() throws IOException {
+        byte[] stream = singleFrame();
+        int lengths = lengthsOffset(stream);
+        // Claims a 512 MiB block with 1 GiB of compressed data, but the stream ends long before
+        ByteBuffer.wrap(stream).putInt(lengths, FsstOutputStream.MAX_BLOCK_SIZE)
+            .putInt(lengths + 4, 2 * FsstOutputStream.MAX_BLOCK_SIZE);
+        assertThrows(EOFException.class, () -> readAll(stream));
+    }
+    
+    @Test
+    void testNotAnFsstStream() {
+        byte[] garbage = "definitely not compressed".getBytes(StandardCharsets.UTF_8);
+        IOException e = assertThrows(IOException.class, () -> readAll(garbage));
+        assertEquals("Not an FSST stream", e.getMessage());
+    }
+    
+    @Test
+    void testInvalidBlockSize() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class, () -> new FsstOutputStream(bytes, 0, true));
+        assertThrows(IllegalArgumentException.class,
+            () -> new FsstOutputStream(bytes, FsstOutputStream.MAX_BLOCK_SIZE + 1, true));
+    }
+}
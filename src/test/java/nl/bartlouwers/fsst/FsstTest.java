@@ -5,6 +5,7 @@ import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -188,6 +189,27 @@ class FsstTest {
         assertArrayEquals(data, decoded);
     }
     
+    @Test
+    void testDecodeWithRefilledTableArrays() {
+        byte[] first = "first table: aaaa bbbb aaaa bbbb aaaa".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second table: xyz xyz xyz 0123 0123".getBytes(StandardCharsets.UTF_8);
+        SymbolTable firstEncoded = fsst.encode(first);
+        SymbolTable secondEncoded = fsst.encode(second);
+        
+        // A caller reusing the same table arrays for another table must not get stale results
+        byte[] symbols = new byte[255 * 8];
+        int[] symbolLengths = new int[255];
+        System.arraycopy(firstEncoded.symbols(), 0, symbols, 0, firstEncoded.symbols().length);
+        System.arraycopy(firstEncoded.symbolLengths(), 0, symbolLengths, 0, symbolLengths.length);
+        assertArrayEquals(first, fsst.decode(
+            symbols, symbolLengths, firstEncoded.compressedData(), firstEncoded.decompressedLength()));
+        
+        System.arraycopy(secondEncoded.symbols(), 0, symbols, 0, secondEncoded.symbols().length);
+        System.arraycopy(secondEncoded.symbolLengths(), 0, symbolLengths, 0, symbolLengths.length);
+        assertArrayEquals(second, fsst.decode(
+            symbols, symbolLengths, secondEncoded.compressedData(), secondEncoded.decompressedLength()));
+    }
+    
     @Test
     void testEncodeNullThrowsException() {
         assertThrows(IllegalArgumentException.class, () -> {
@@ -239,5 +261,125 @@ class FsstTest {
             assertArrayEquals(data, decoded);
         }
     }
+    
+    @Test
+    void testEncodeAllRoundTrip() {
+        String[] texts = {
+            "https://example.com/index.html",
+            "https://example.com/about.html",
+            "",
+            "https://example.org/contact",
+            "x"
+        };
+        byte[][] data = new byte[texts.length][];
+        for (int i = 0; i < texts.length; i++) {
+            data[i] = texts[i].getBytes(StandardCharsets.UTF_8);
+        }
+        
+        BatchSymbolTable encoded = fsst.encodeAll(data);
+        assertEquals(data.length, encoded.size());
+        
+        byte[][] decoded = fsst.decodeAll(encoded);
+        for (int i = 0; i < data.length; i++) {
+            assertArrayEquals(data[i], decoded[i]);
+            assertArrayEquals(data[i], fsst.decode(encoded.get(i)));
+        }
+    }
+    
+    /**
+     * An implementation written against the original interface, before the batch methods.
+     */
+    private static final class SingleValueFsst implements Fsst {
+        private final Fsst delegate = new FsstImpl();
+        
+        @Override
+        public SymbolTable encode(byte[] data) {
+            return delegate.encode(data);
+        }
+        
+        @Override
+        public byte[] decode(SymbolTable encoded) {
+            return delegate.decode(encoded);
+        }
+        
+        @Override
+        public byte[] decode(byte[] symbols, int[] symbolLengths, byte[] compressedData, int decompressedLength) {
+            return delegate.decode(symbols, symbolLengths, compressedData, decompressedLength);
+        }
+    }
+    
+    @Test
+    void testDefaultMethods() {
+        Fsst minimal = new SingleValueFsst();
+        byte[][] data = new byte[100][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = ("user" + i + "@example.com").getBytes(StandardCharsets.UTF_8);
+        }
+        
+        BatchSymbolTable encoded = minimal.encodeAll(data);
+        assertEquals(data.length, encoded.size());
+        byte[][] decoded = minimal.decodeAll(encoded);
+        for (int i = 0; i < data.length; i++) {
+            assertArrayEquals(data[i], decoded[i]);
+        }
+        assertThrows(IllegalArgumentException.class, () -> minimal.encodeAll(new byte[][]{null}));
+        
+        byte[] dst = new byte[64];
+        int written = minimal.decode(encoded.get(7), dst, 3);
+        assertArrayEquals(data[7], Arrays.copyOfRange(dst, 3, 3 + written));
+    }
+    
+    @Test
+    void testEncodeAllSharesSymbolTable() {
+        byte[][] data = new byte[1000][];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = ("user" + i + "@example.com").getBytes(StandardCharsets.UTF_8);
+        }
+        
+        BatchSymbolTable encoded = fsst.encodeAll(data);
+        
+        int totalCompressed = 0;
+        int totalOriginal = 0;
+        for (int i = 0; i < data.length; i++) {
+            totalCompressed += encoded.compressedData()[i].length;
+            totalOriginal += data[i].length;
+            assertSame(encoded.symbols(), encoded.get(i).symbols());
+        }
+        assertTrue(totalCompressed < totalOriginal,
+            "Strings sharing a trained symbol table should compress");
+    }
+    
+    @Test
+    void testEncodeAllNullThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> fsst.encodeAll(null));
+        assertThrows(IllegalArgumentException.class, () -> fsst.encodeAll(new byte[][]{null}));
+    }
+    
+    @Test
+    void testDecodeIntoProvidedBuffer() {
+        byte[] data = "Decode into a reusable scratch buffer".getBytes(StandardCharsets.UTF_8);
+        SymbolTable encoded = fsst.encode(data);
+        
+        byte[] dst = new byte[data.length + 20];
+        Arrays.fill(dst, (byte) '#');
+        int written = fsst.decode(encoded, dst, 10);
+        
+        assertEquals(data.length, written);
+        assertArrayEquals(data, Arrays.copyOfRange(dst, 10, 10 + written));
+        // Bytes outside the decoded range are untouched
+        for (int i = 0; i < 10; i++) {
+            assertEquals('#', dst[i]);
+        }
+        for (int i = 10 + written; i < dst.length; i++) {
+            assertEquals('#', dst[i]);
+        }
+    }
+    
+    @Test
+    void testDecodeIntoTooSmallBufferThrows() {
+        byte[] data = "too small".getBytes(StandardCharsets.UTF_8);
+        SymbolTable encoded = fsst.encode(data);
+        
+        assertThrows(IndexOutOfBoundsException.class, () -> fsst.decode(encoded, new byte[4], 0));
+    }
 }
-
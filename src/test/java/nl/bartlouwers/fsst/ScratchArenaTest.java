@@ -0,0 +1,66 @@
+package nl.bartlouwers.fsst;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * Test suite for the per-thread scratch allocator.
+ */
+class ScratchArenaTest {
+    
+    @Test
+    void testReusesMemoryAcrossCalls() {
+        long first;
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            first = scratch.allocate(ValueLayout.JAVA_LONG, 16).address();
+        }
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            assertEquals(first, scratch.allocate(ValueLayout.JAVA_LONG, 16).address());
+        }
+    }
+    
+    @Test
+    void testAllocationsAreAlignedAndDisjoint() {
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            MemorySegment a = scratch.allocate(3, 1);
+            MemorySegment b = scratch.allocate(ValueLayout.JAVA_LONG);
+            MemorySegment c = scratch.allocate(100_000, 64);
+            
+            assertEquals(0, b.address() % 8);
+            assertEquals(0, c.address() % 64);
+            assertTrue(a.address() + a.byteSize() <= b.address());
+            assertEquals(100_000, c.byteSize());
+        }
+    }
+    
+    @Test
+    void testNestedAcquireGetsSeparateMemory() {
+        try (ScratchArena outer = ScratchArena.acquire()) {
+            MemorySegment a = outer.allocate(ValueLayout.JAVA_LONG);
+            try (ScratchArena inner = ScratchArena.acquire()) {
+                assertNotSame(outer, inner);
+                MemorySegment b = inner.allocate(ValueLayout.JAVA_LONG);
+                assertNotEquals(a.address(), b.address());
+            }
+        }
+    }
+    
+    @Test
+    void testLargeAllocationsAreNotRetained() {
+        try (ScratchArena scratch = ScratchArena.acquire()) {
+            MemorySegment large = scratch.allocate(ScratchArena.MAX_RETAINED_BYTES + 1, 8);
+            large.set(ValueLayout.JAVA_BYTE, ScratchArena.MAX_RETAINED_BYTES, (byte) 1);
+        }
+    }
+    
+    @Test
+    void testAllocateAfterCloseThrows() {
+        ScratchArena scratch = ScratchArena.acquire();
+        scratch.allocate(ValueLayout.JAVA_LONG);
+        scratch.close();
+        assertThrows(IllegalStateException.class, () -> scratch.allocate(ValueLayout.JAVA_LONG));
+    }
+}
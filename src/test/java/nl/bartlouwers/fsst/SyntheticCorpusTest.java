@@ -0,0 +1,61 @@
+package nl.bartlouwers.fsst;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Test suite for the seeded synthetic benchmark corpus.
+ */
+class SyntheticCorpusTest {
+    
+    private static int[] lengths(byte[][] values) {
+        return Arrays.stream(values).mapToInt(value -> value.length).toArray();
+    }
+    
+    @Test
+    void testDefaultSeedIsPinned() {
+        // Benchmark results are only comparable while the default seed produces these exact strings
+        byte[][] urls = SyntheticCorpus.generate(SyntheticCorpus.Family.URLS, 8);
+        assertArrayEquals(new int[]{36, 38, 54, 40, 44, 35, 50, 53}, lengths(urls));
+        assertEquals("https://m.example.com/request/search", new String(urls[0], StandardCharsets.UTF_8));
+        
+        byte[][] emails = SyntheticCorpus.generate(SyntheticCorpus.Family.EMAILS, 8);
+        assertArrayEquals(new int[]{23, 21, 30, 22, 19, 23, 25, 22}, lengths(emails));
+        assertEquals("david.smith@hotmail.com", new String(emails[0], StandardCharsets.UTF_8));
+        
+        byte[][] logLines = SyntheticCorpus.generate(SyntheticCorpus.Family.LOG_LINES, 8);
+        assertArrayEquals(new int[]{96, 95, 97, 96, 101, 96, 99, 98}, lengths(logLines));
+    }
+    
+    @Test
+    void testSameSeedSameStrings() {
+        for (SyntheticCorpus.Family family : SyntheticCorpus.Family.values()) {
+            byte[][] first = SyntheticCorpus.generate(family, 500, 10, 80, 7);
+            byte[][] second = SyntheticCorpus.generate(family, 500, 10, 80, 7);
+            byte[][] otherSeed = SyntheticCorpus.generate(family, 500, 10, 80, 8);
+            assertTrue(Arrays.deepEquals(first, second), family.name());
+            assertFalse(Arrays.deepEquals(first, otherSeed), family.name());
+        }
+    }
+    
+    @Test
+    void testLengthProfilesStayInBounds() {
+        for (SyntheticCorpus.Family family : SyntheticCorpus.Family.values()) {
+            for (SyntheticCorpus.LengthProfile profile : SyntheticCorpus.LengthProfile.values()) {
+                for (byte[] value : SyntheticCorpus.generate(family, 1000, profile)) {
+                    assertTrue(value.length >= profile.minLength && value.length <= profile.maxLength,
+                        family + " " + profile + ": " + value.length);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void testInvalidLengthsThrow() {
+        assertThrows(IllegalArgumentException.class,
+            () -> SyntheticCorpus.generate(SyntheticCorpus.Family.URLS, 10, 20, 10, 1));
+    }
+}